@@ -0,0 +1,27 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.BoxpointApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Starts the application without a web server against the embedded H2 database of the
+ * {@code benchmark} profile. Every JMH fork starts its own context and its own database.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        // Passed as command line arguments, default properties would lose to application.properties
+        String[] args = Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new);
+        return new SpringApplicationBuilder(BoxpointApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run(args);
+    }
+}
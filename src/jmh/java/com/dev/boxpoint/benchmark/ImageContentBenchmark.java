@@ -0,0 +1,73 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.repository.ImageContentRepository;
+import com.dev.boxpoint.repository.ImageRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading image content stored as a database BLOB: the whole Blob copied into a byte[]
+ * through the entity, against the chunked JDBC stream the downloads use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageContentBenchmark {
+
+    @Param({"65536", "1048576"})
+    private int imageSize;
+
+    private ConfigurableApplicationContext context;
+    private ImageRepository imageRepository;
+    private ImageContentRepository imageContentRepository;
+    private TransactionTemplate transactionTemplate;
+    private Long imageId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = BenchmarkContext.start();
+        imageRepository = context.getBean(ImageRepository.class);
+        imageContentRepository = context.getBean(ImageContentRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        Image image = new Image();
+        image.setFileName("benchmark.jpg");
+        image.setFileType("image/jpeg");
+        image.setImage(new SerialBlob(new SyntheticData().imageContent(imageSize)));
+        imageId = imageRepository.save(image).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] blobToByteArray() {
+        // The Blob is only readable inside the transaction that loaded it
+        return transactionTemplate.execute(status -> {
+            Blob blob = imageRepository.findById(imageId).orElseThrow().getImage();
+            try {
+                return blob.getBytes(1, (int) blob.length());
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Benchmark
+    public long streamContent() {
+        return imageContentRepository.copyContent(imageId, 0, Long.MAX_VALUE, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,112 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.ImageUploadResultDto;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ImageRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.service.image.IImageService;
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time of one 20-file upload. {@code upload} is the current pipeline, which
+ * validates and stores up to {@code concurrency} files at once on virtual threads and
+ * inserts the rows in one batch; at a concurrency of 1 it stores the files one after
+ * another. {@code uploadSequentially} is the path it replaced: each file read into a
+ * SerialBlob and saved twice, once for the id and once more for the download URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+public class ImageUploadBenchmark {
+
+    private static final int FILES = 20;
+
+    @Param({"1", "8"})
+    private int concurrency;
+
+    @Param({"262144"})
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private IImageService imageService;
+    private ImageRepository imageRepository;
+    private ImageStorage imageStorage;
+    private Product product;
+    private List<MultipartFile> files;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("images.upload.concurrency=" + concurrency);
+        imageService = context.getBean(IImageService.class);
+        imageRepository = context.getBean(ImageRepository.class);
+        imageStorage = context.getBean(ImageStorage.class);
+
+        Category category = context.getBean(CategoryRepository.class).save(new Category("Uploads"));
+        product = context.getBean(ProductRepository.class)
+                .save(new Product("Upload target", "Acme", new BigDecimal("9.99"), 1, null, category));
+
+        // Random bytes declared as JPEG: validated and stored like any upload, no variants are generated
+        SyntheticData data = new SyntheticData();
+        files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            files.add(new MockMultipartFile("files", "upload-" + i + ".jpg", "image/jpeg", data.imageContent(fileSize)));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUploads() {
+        // Keep the database and the storage directory from growing over the run
+        imageRepository.findAll().stream()
+                .map(Image::getStorageKey)
+                .filter(Objects::nonNull)
+                .forEach(imageStorage::delete);
+        imageRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ImageUploadResultDto> upload() {
+        return imageService.saveImages(product.getId(), files);
+    }
+
+    @Benchmark
+    public List<Image> uploadSequentially() throws IOException, SQLException {
+        List<Image> images = new ArrayList<>(FILES);
+        for (MultipartFile file : files) {
+            Image image = new Image();
+            image.setFileName(file.getOriginalFilename());
+            image.setFileType(file.getContentType());
+            image.setImage(new SerialBlob(file.getBytes()));
+            image.setProduct(product);
+
+            // Saved once for the id, then again with the URL built from it; the file name stands in for the dropped URL column
+            Image saved = imageRepository.save(image);
+            saved.setFileName(saved.getFileName() + "?id=" + saved.getId());
+            images.add(imageRepository.save(saved));
+        }
+        return images;
+    }
+}
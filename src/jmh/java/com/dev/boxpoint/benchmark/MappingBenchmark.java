@@ -0,0 +1,93 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.dtos.UserDto;
+import com.dev.boxpoint.mapper.*;
+import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MapStruct-generated mappers against the reflective ModelMapper they replaced, in its
+ * default configuration as the application used it. Run with {@code -prof gc}: the
+ * {@code gc.alloc.rate.norm} column is the bytes allocated per mapped object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private AnnotationConfigApplicationContext mappers;
+    private ProductMapper productMapper;
+    private ImageMapper imageMapper;
+    private UserMapper userMapper;
+    private ModelMapper modelMapper;
+
+    private Product product;
+    private Image image;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The generated mappers are Spring components that inject each other, nothing else is needed
+        mappers = new AnnotationConfigApplicationContext(ProductMapperImpl.class, ImageMapperImpl.class,
+                UserMapperImpl.class, OrderMapperImpl.class, CartMapperImpl.class);
+        productMapper = mappers.getBean(ProductMapper.class);
+        imageMapper = mappers.getBean(ImageMapper.class);
+        userMapper = mappers.getBean(UserMapper.class);
+        modelMapper = new ModelMapper();
+
+        // A user with a cart and one order of five items, the same shape UserBenchmark maps
+        user = new SyntheticData().user(1, 5);
+        product = user.getCart().getItems().iterator().next().getProduct();
+        image = new Image();
+        image.setId(1L);
+        image.setFileName("product-1.jpg");
+        image.setFileType("image/jpeg");
+        image.setProduct(product);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mappers.close();
+    }
+
+    @Benchmark
+    public ProductDto productMapStruct() {
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public ProductDto productModelMapper() {
+        return modelMapper.map(product, ProductDto.class);
+    }
+
+    @Benchmark
+    public ImageDto imageMapStruct() {
+        return imageMapper.toDto(image);
+    }
+
+    @Benchmark
+    public ImageDto imageModelMapper() {
+        return modelMapper.map(image, ImageDto.class);
+    }
+
+    @Benchmark
+    public UserDto userMapStruct() {
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public UserDto userModelMapper() {
+        return modelMapper.map(user, UserDto.class);
+    }
+}
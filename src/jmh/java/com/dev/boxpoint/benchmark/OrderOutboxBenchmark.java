@@ -0,0 +1,103 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.UserRepository;
+import com.dev.boxpoint.service.order.OrderOutboxProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draining an order outbox of {@code events} placed orders with {@code workers} threads
+ * claiming batches side by side, as the outbox processor's workers do on one or more
+ * instances. After each drain every order must have advanced exactly once and the outbox
+ * must be empty, or the run fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderOutboxBenchmark {
+
+    @Param({"10000"})
+    private int events;
+
+    @Param({"1", "2", "4", "8"})
+    private int workers;
+
+    private ConfigurableApplicationContext context;
+    private OrderOutboxProcessor processor;
+    private JdbcTemplate jdbcTemplate;
+    private ExecutorService pool;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The benchmark's threads are the only workers
+        context = BenchmarkContext.start("orders.outbox.workers=0");
+        processor = context.getBean(OrderOutboxProcessor.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        pool = Executors.newFixedThreadPool(workers);
+
+        User user = new User();
+        user.setEmail("outbox@example.com");
+        userId = context.getBean(UserRepository.class).save(user).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void placeOrders() {
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("INSERT INTO orders (order_date, total_amount, order_status, user_id) "
+                + "SELECT CURRENT_DATE, 1, 'PENDING', ? FROM SYSTEM_RANGE(1, ?)", userId, events);
+        jdbcTemplate.update("INSERT INTO order_outbox (order_id, target_status, created_at) "
+                + "SELECT order_id, 'PROCESSING', CURRENT_TIMESTAMP FROM orders");
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAllAdvanced() {
+        long processing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE order_status = 'PROCESSING'", Long.class);
+        long waiting = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_outbox", Long.class);
+
+        if (processing != events || waiting != 0) {
+            throw new IllegalStateException(processing + " of " + events + " orders advanced, "
+                    + waiting + " events left");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public int drain() throws Exception {
+        // Every worker claims batches until the outbox is empty
+        List<Future<Integer>> drained = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            drained.add(pool.submit(() -> {
+                int applied = 0;
+                for (int batch = processor.processBatch(); batch > 0; batch = processor.processBatch()) {
+                    applied += batch;
+                }
+                return applied;
+            }));
+        }
+
+        int applied = 0;
+        for (Future<Integer> worker : drained) {
+            applied += worker.get();
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,141 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.exceptions.InsufficientStockException;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import com.dev.boxpoint.service.cart.ICartService;
+import com.dev.boxpoint.service.inventory.LedgerStockReservationService;
+import com.dev.boxpoint.service.order.IOrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent checkouts of one hot product. Every iteration starts with {@code stock} units;
+ * the small stock sells out while the threads race, the large one measures orders per
+ * second on the contended row. After each iteration the units ordered must equal the stock
+ * taken, and the inventory must not be negative, or the run fails. {@code placed} counts
+ * the orders, {@code soldOut} the orders rejected for lack of stock. {@code ledger} compares
+ * the conditional updates on the product row with the in-memory inventory ledger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class OrderPlacementBenchmark {
+
+    @Param({"100", "1000000"})
+    private int stock;
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private ICartService cartService;
+    private IOrderService orderService;
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private LedgerStockReservationService ledgerService;
+    private Long productId;
+    private long soldBefore;
+
+    // Every thread checks out as its own user, so only the product's row is contended
+    private final AtomicLong users = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Checkout {
+        public long placed;
+        public long soldOut;
+
+        private Long userId;
+
+        @Setup(Level.Trial)
+        public void setUp(OrderPlacementBenchmark benchmark) {
+            User user = new User();
+            user.setEmail("checkout-" + benchmark.users.incrementAndGet() + "@example.com");
+            userId = benchmark.userRepository.save(user).getId();
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            placed = 0;
+            soldOut = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("inventory.ledger.enabled=" + ledger);
+        ledgerService = context.getBeanProvider(LedgerStockReservationService.class).getIfAvailable();
+        cartService = context.getBean(ICartService.class);
+        orderService = context.getBean(IOrderService.class);
+        userRepository = context.getBean(UserRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Category category = context.getBean(CategoryRepository.class).save(new Category("Hot"));
+        productId = context.getBean(ProductRepository.class)
+                .save(new Product("Hot item", "Acme", new BigDecimal("19.99"), 0, "Sells out", category))
+                .getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        // The ledger gives back what it still holds, so the product has all units again
+        if (ledgerService != null) {
+            ledgerService.releaseAll();
+        }
+        jdbcTemplate.update("UPDATE product SET inventory = ? WHERE id = ?", stock, productId);
+        soldBefore = sold();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoOversell() {
+        // Settle the ledger's orders and give back its units, so the product row has the count
+        if (ledgerService != null) {
+            ledgerService.settle();
+            ledgerService.releaseAll();
+        }
+        int inventory = jdbcTemplate.queryForObject("SELECT inventory FROM product WHERE id = ?", Integer.class, productId);
+        long sold = sold() - soldBefore;
+
+        if (inventory < 0 || sold != stock - inventory) {
+            throw new IllegalStateException("Oversold: " + sold + " units ordered from a stock of "
+                    + stock + ", " + inventory + " left");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void placeOrder(Checkout checkout) {
+        try {
+            cartService.addItem(checkout.userId, productId, 1);
+            orderService.placeOrder(checkout.userId);
+            checkout.placed++;
+        } catch (InsufficientStockException e) {
+            // The cart keeps the item when the order fails, start the next attempt with an empty cart
+            cartService.removeItem(checkout.userId, productId);
+            checkout.soldOut++;
+        }
+    }
+
+    private long sold() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM order_item WHERE product_id = ?", Long.class, productId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.mapper.ProductMapper;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ProductView;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.service.product.IProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product conversion and listing. The entity and projection listings read the same page,
+ * so their difference is the cost of hydrating Product and Category entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int IMAGES_PER_PRODUCT = 2;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private IProductService productService;
+    private ProductRepository productRepository;
+    private ProductMapper productMapper;
+    private List<ProductView> page;
+    private Product product;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        new SyntheticData().insertCatalog(context, PRODUCTS, IMAGES_PER_PRODUCT);
+
+        productService = context.getBean(IProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        productMapper = context.getBean(ProductMapper.class);
+        page = productRepository.findViewsBy(ScrollPosition.keyset(), Limit.of(pageSize), ProductSort.ID.toSort()).getContent();
+        product = productRepository.findById(page.get(0).id()).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDto> getConvertedProducts() {
+        // One image query for the whole page, plus the mapping
+        return productService.getConvertedProducts(page);
+    }
+
+    @Benchmark
+    public ProductDto convertToDto() {
+        return productService.convertToDto(product);
+    }
+
+    @Benchmark
+    public CursorPageDto<ProductDto> listPage() {
+        // The full listing path of GET /products/all, without HTTP
+        return productService.getConvertedPage(productService.getAllProducts(ProductSort.PRICE, null, pageSize), ProductSort.PRICE);
+    }
+
+    @Benchmark
+    public List<ProductDto> listPageAsProjections() {
+        return productRepository.findViewsBy(ScrollPosition.keyset(), Limit.of(pageSize), ProductSort.PRICE.toSort())
+                .map(productMapper::toDto)
+                .getContent();
+    }
+
+    @Benchmark
+    public List<ProductDto> listPageAsEntities() {
+        return productRepository.findAllBy(ScrollPosition.keyset(), Limit.of(pageSize), ProductSort.PRICE.toSort())
+                .map(productMapper::toDto)
+                .getContent();
+    }
+}
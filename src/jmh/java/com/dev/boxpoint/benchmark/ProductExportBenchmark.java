@@ -0,0 +1,104 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.enums.DataFormat;
+import com.dev.boxpoint.service.product.IProductExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole catalog exported into a stream that only counts bytes, as the export endpoint
+ * streams it to a fast client. The setup runs one extra export with a full GC after every
+ * tenth of the catalog and prints the most heap the export held above the idle catalog,
+ * which stays flat however many products there are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductExportBenchmark {
+
+    @Param({"1000000"})
+    private int products;
+
+    @Param({"NDJSON", "CSV"})
+    private DataFormat format;
+
+    private ConfigurableApplicationContext context;
+    private IProductExportService productExportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        new SyntheticData().insertCatalog(context, products, 1);
+        productExportService = context.getBean(IProductExportService.class);
+
+        long idle = usedHeapAfterGc();
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(products / 10);
+        productExportService.exportProducts(format, out);
+
+        System.out.printf("%nExport: %d products, %d MB written, at most %d MB heap held above the idle catalog (%d MB)%n",
+                products, out.bytes / (1024 * 1024), Math.max(0, out.maxUsed - idle) / (1024 * 1024), idle / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export() {
+        CountingOutputStream out = new CountingOutputStream();
+        productExportService.exportProducts(format, out);
+        return out.bytes;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+
+    private static final class HeapSamplingOutputStream extends CountingOutputStream {
+        private final int linesPerSample;
+        private long lines;
+        long maxUsed;
+
+        HeapSamplingOutputStream(int linesPerSample) {
+            this.linesPerSample = linesPerSample;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            // One line per product (plus the CSV header), sampled mid-export with the stream still open
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n' && ++lines % linesPerSample == 0) {
+                    maxUsed = Math.max(maxUsed, usedHeapAfterGc());
+                }
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
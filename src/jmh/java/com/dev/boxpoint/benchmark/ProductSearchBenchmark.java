@@ -0,0 +1,97 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.projection.ProductView;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.service.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of product search over a synthetic catalog: the {@code LIKE '%name%'} scan the
+ * endpoint used to run against the in-memory index. A common word finds its first page of
+ * LIKE matches early in the table, a rare one has to scan all of it. The setup also prints
+ * the heap the built index retains, measured after a full GC before and after the rebuild.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    private int products;
+
+    // A word in every 8th product name, two words of a name, and a single product's number
+    @Param({"camera", "smart camera", "424242"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductSearchIndex productSearchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        new SyntheticData().insertCatalog(context, products, 0);
+
+        productRepository = context.getBean(ProductRepository.class);
+        productSearchIndex = context.getBean(ProductSearchIndex.class);
+
+        // The startup rebuild ran on the empty catalog, so rebuild and measure what it retains
+        long before = usedHeapAfterGc();
+        long start = System.nanoTime();
+        productSearchIndex.rebuild();
+        long rebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long after = usedHeapAfterGc();
+        long retained = after - before;
+
+        System.out.printf("%nSearch index: %d products rebuilt in %d ms, retaining %d MB (%d bytes per product), %d MB heap in use%n",
+                products, rebuildMillis, retained / (1024 * 1024), retained / products, after / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> like() {
+        // The query the search endpoint ran before the index, one page in id order
+        return productRepository.findByNameContainingIgnoreCase(
+                        query, ScrollPosition.keyset(), Limit.of(PAGE_SIZE), ProductSort.ID.toSort())
+                .map(ProductView::id)
+                .getContent();
+    }
+
+    @Benchmark
+    public List<Long> index() {
+        // Scoring and ranking only
+        return productSearchIndex.search(query, null, PAGE_SIZE).ids();
+    }
+
+    @Benchmark
+    public List<ProductView> indexWithRows() {
+        // What the endpoint does now: ranked ids from the index, then their rows in one query
+        return productRepository.findViewsByIdIn(productSearchIndex.search(query, null, PAGE_SIZE).ids());
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.response.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of ApiResponse bodies with large product lists. Uses the same
+ * builder Spring Boot configures its ObjectMapper with, no application context needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int products;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductDto> items = new SyntheticData().productDtos(products);
+        response = new ApiResponse("success", new CursorPageDto<>(items, "cursor", true));
+    }
+
+    @Benchmark
+    public byte[] writeApiResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
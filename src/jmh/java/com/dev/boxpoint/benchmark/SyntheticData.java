@@ -0,0 +1,188 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.CategoryDto;
+import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.enums.OrderStatus;
+import com.dev.boxpoint.model.*;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ImageRepository;
+import com.dev.boxpoint.repository.ProductBatchRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates catalog, user and image data for the benchmarks. The data is derived from a
+ * fixed seed, so every run measures the same rows.
+ */
+final class SyntheticData {
+
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Tyrell", "Cyberdyne"};
+    private static final String[] WORDS = {"Wireless", "Compact", "Smart", "Ultra", "Portable", "Classic", "Pro", "Mini",
+            "Speaker", "Headphones", "Camera", "Laptop", "Monitor", "Keyboard", "Charger", "Watch"};
+    private static final int CATEGORIES = 12;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final Random random = new Random(42);
+
+    void insertCatalog(ApplicationContext context, int productCount, int imagesPerProduct) {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductBatchRepository productBatchRepository = context.getBean(ProductBatchRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        ImageRepository imageRepository = context.getBean(ImageRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(new Category("Category " + i));
+        }
+        categories = categoryRepository.saveAll(categories);
+
+        // Products go in with the same JDBC batches the bulk import uses
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < productCount; i++) {
+            chunk.add(product(i, categories.get(i % categories.size())));
+            if (chunk.size() == CHUNK_SIZE || i == productCount - 1) {
+                productBatchRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+
+        // Image metadata only, pointing at storage keys; the listings never read the content
+        List<Image> images = new ArrayList<>(CHUNK_SIZE);
+        for (Long productId : jdbcTemplate.queryForList("SELECT id FROM product", Long.class)) {
+            for (int i = 0; i < imagesPerProduct; i++) {
+                images.add(image(productRepository.getReferenceById(productId), i));
+            }
+            if (images.size() >= CHUNK_SIZE) {
+                imageRepository.saveAll(images);
+                images.clear();
+            }
+        }
+        imageRepository.saveAll(images);
+    }
+
+    List<ProductDto> productDtos(int count) {
+        List<ProductDto> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = product(i, null);
+            ProductDto dto = new ProductDto();
+            dto.setId((long) i + 1);
+            dto.setName(product.getName());
+            dto.setBrand(product.getBrand());
+            dto.setPrice(product.getPrice());
+            dto.setInventory(product.getInventory());
+            dto.setDescription(product.getDescription());
+            dto.setVersion((long) random.nextInt(5));
+
+            CategoryDto category = new CategoryDto();
+            category.setId((long) i % CATEGORIES + 1);
+            category.setName("Category " + i % CATEGORIES);
+            dto.setCategory(category);
+
+            List<ImageDto> images = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                ImageDto image = new ImageDto();
+                image.setId((long) i * 2 + j + 1);
+                image.setFileName("product-" + i + "-" + j + ".jpg");
+                image.setDownloadUrl("/api/v1/images/image/download/" + image.getId());
+                Map<String, String> variants = new LinkedHashMap<>();
+                variants.put("thumb", image.getDownloadUrl() + "?size=thumb");
+                variants.put("medium", image.getDownloadUrl() + "?size=medium");
+                image.setVariantUrls(variants);
+                images.add(image);
+            }
+            dto.setImages(images);
+            products.add(dto);
+        }
+        return products;
+    }
+
+    User user(int orderCount, int itemsPerOrder) {
+        User user = new User();
+        user.setId(1L);
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setEmail("jane.doe@example.com");
+
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        cart.setItems(new HashSet<>());
+        for (int i = 0; i < itemsPerOrder; i++) {
+            Product product = persistedProduct(i);
+            CartItem item = new CartItem();
+            item.setId((long) i + 1);
+            item.setQuantity(1 + random.nextInt(3));
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice();
+            item.setProduct(product);
+            item.setCart(cart);
+            cart.getItems().add(item);
+        }
+        cart.setTotalAmount(cart.getItems().stream().map(CartItem::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+        user.setCart(cart);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setOrderId((long) i + 1);
+            order.setOrderDate(LocalDate.of(2024, 1, 1).plusDays(i));
+            order.setOrderStatus(OrderStatus.values()[i % OrderStatus.values().length]);
+            order.setUser(user);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < itemsPerOrder; j++) {
+                Product product = persistedProduct(j);
+                OrderItem item = new OrderItem(1 + random.nextInt(3), product.getPrice(), order, product);
+                item.setId((long) i * itemsPerOrder + j + 1);
+                order.getOrderItems().add(item);
+                total = total.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+            order.setTotalAmount(total);
+            orders.add(order);
+        }
+        user.setOrders(orders);
+        return user;
+    }
+
+    byte[] imageContent(int size) {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        return content;
+    }
+
+    private Product persistedProduct(int index) {
+        Product product = product(index, new Category("Category " + index % CATEGORIES));
+        product.setId((long) index + 1);
+        product.getCategory().setId((long) index % CATEGORIES + 1);
+        return product;
+    }
+
+    private Product product(int index, Category category) {
+        String name = WORDS[random.nextInt(8)] + " " + WORDS[8 + random.nextInt(8)] + " " + index;
+        BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(200_000), 2);
+        String description = "Synthetic " + name.toLowerCase() + " for benchmarks, generated from a fixed seed.";
+        return new Product(name, BRANDS[random.nextInt(BRANDS.length)], price, random.nextInt(500), description, category);
+    }
+
+    private static Image image(Product product, int index) {
+        Image image = new Image();
+        image.setFileName("product-" + index + ".jpg");
+        image.setFileType("image/jpeg");
+        image.setStorageKey("benchmark/" + index);
+        image.setContentHash("0".repeat(64));
+        image.setFileSize(100_000L);
+        image.setProduct(product);
+        return image;
+    }
+}
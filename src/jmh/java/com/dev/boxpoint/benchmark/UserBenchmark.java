@@ -0,0 +1,48 @@
+package com.dev.boxpoint.benchmark;
+
+import com.dev.boxpoint.dtos.UserDto;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.service.user.IUserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User to UserDto mapping, including the cart and the order history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBenchmark {
+
+    @Param({"1", "50"})
+    private int orders;
+
+    @Param({"5"})
+    private int itemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private IUserService userService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(IUserService.class);
+        user = new SyntheticData().user(orders, itemsPerOrder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDto convertUserToDto() {
+        return userService.convertUserToDto(user);
+    }
+}
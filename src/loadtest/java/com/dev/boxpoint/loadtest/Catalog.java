@@ -0,0 +1,18 @@
+package com.dev.boxpoint.loadtest;
+
+import java.util.List;
+
+/**
+ * Keys of the seeded data that requests are built from.
+ */
+record Catalog(
+        List<ProductKey> products,
+        List<Long> categoryIds,
+        List<String> categoryNames,
+        List<String> brands,
+        List<Long> imageIds,
+        List<Long> userIds) {
+
+    record ProductKey(Long id, String name, String brand, String category) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.dev.boxpoint.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds categories, products, images and users through the public API, so the same
+ * seeding works against the embedded application and against a deployed instance.
+ */
+final class CatalogSeeder {
+
+    static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Tyrell", "Cyberdyne",
+            "Hooli", "Soylent", "Wonka", "Gringotts"};
+    static final String[] WORDS = {"Wireless", "Compact", "Smart", "Ultra", "Portable", "Classic", "Pro", "Mini",
+            "Speaker", "Headphones", "Camera", "Laptop", "Monitor", "Keyboard", "Charger", "Watch"};
+
+    private static final int IMPORT_BATCH = 5_000;
+    private static final int FILES_PER_UPLOAD = 5;
+    private static final int PAGE_SIZE = 100;
+
+    private final HttpClient client;
+    private final String api;
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper;
+    private final Random random;
+
+    CatalogSeeder(HttpClient client, String api, LoadTestConfig config, ObjectMapper objectMapper) {
+        this.client = client;
+        this.api = api;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.random = new Random(config.seed());
+    }
+
+    Catalog seed() {
+        Map<Long, String> categories = seedCategories();
+        seedProducts(new ArrayList<>(categories.values()));
+        List<Catalog.ProductKey> products = readProducts();
+        List<Long> images = seedImages(products);
+        List<Long> users = seedUsers();
+
+        LinkedHashSet<String> brands = new LinkedHashSet<>();
+        products.forEach(product -> brands.add(product.brand()));
+        return new Catalog(products, new ArrayList<>(categories.keySet()), new ArrayList<>(categories.values()),
+                new ArrayList<>(brands), images, users);
+    }
+
+    private Map<Long, String> seedCategories() {
+        Map<Long, String> categories = new LinkedHashMap<>();
+        for (int i = 0; i < config.categories(); i++) {
+            String name = "Category " + i;
+            JsonNode category = post("/categories/add", Map.of("name", name)).path("data");
+            categories.put(category.path("id").asLong(), name);
+        }
+        return categories;
+    }
+
+    private void seedProducts(List<String> categories) {
+        // Products go in through the NDJSON bulk import, a few thousand per request
+        for (int from = 0; from < config.products(); from += IMPORT_BATCH) {
+            StringBuilder body = new StringBuilder();
+            for (int i = from; i < Math.min(config.products(), from + IMPORT_BATCH); i++) {
+                body.append(json(product(i, categories.get(i % categories.size())))).append('\n');
+            }
+            String events = send(HttpRequest.newBuilder(URI.create(api + "/products/import"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build());
+            if (!events.contains("\"done\"")) {
+                throw new IllegalStateException("Product import did not finish: " + events);
+            }
+            System.out.printf("Seeded %d of %d products%n", Math.min(config.products(), from + IMPORT_BATCH), config.products());
+        }
+    }
+
+    private List<Catalog.ProductKey> readProducts() {
+        // Read the generated ids back by paging through the catalog
+        List<Catalog.ProductKey> products = new ArrayList<>(config.products());
+        String cursor = null;
+        do {
+            String query = "/products/all?size=" + PAGE_SIZE + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode page = get(query).path("data");
+            for (JsonNode item : page.path("items")) {
+                products.add(new Catalog.ProductKey(item.path("id").asLong(), item.path("name").asText(),
+                        item.path("brand").asText(), item.path("category").path("name").asText()));
+            }
+            cursor = page.path("nextCursor").isTextual() ? page.path("nextCursor").asText() : null;
+        } while (cursor != null);
+        return products;
+    }
+
+    private List<Long> seedImages(List<Catalog.ProductKey> products) {
+        byte[] content = sampleImage();
+        List<Long> images = new ArrayList<>(config.images());
+        int product = 0;
+        while (images.size() < config.images()) {
+            int files = Math.min(FILES_PER_UPLOAD, config.images() - images.size());
+            Multipart multipart = new Multipart();
+            for (int i = 0; i < files; i++) {
+                multipart.file("files", "seed-" + (images.size() + i) + ".jpg", "image/jpeg", content);
+            }
+            multipart.field("productId", String.valueOf(products.get(product++ % products.size()).id()));
+
+            JsonNode results = read(send(multipart.post(URI.create(api + "/images/upload")))).path("data");
+            for (JsonNode result : results) {
+                if (result.path("success").asBoolean()) {
+                    images.add(result.path("image").path("id").asLong());
+                }
+            }
+        }
+        System.out.printf("Seeded %d images%n", images.size());
+        return images;
+    }
+
+    private List<Long> seedUsers() {
+        List<Long> users = new ArrayList<>(config.users());
+        for (int i = 0; i < config.users(); i++) {
+            users.add(post("/users/add", user("seed-" + i)).path("data").path("id").asLong());
+        }
+        System.out.printf("Seeded %d users%n", users.size());
+        return users;
+    }
+
+    Map<String, Object> product(int index, String category) {
+        String name = WORDS[random.nextInt(8)] + " " + WORDS[8 + random.nextInt(8)] + " " + index;
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("name", name);
+        product.put("brand", BRANDS[random.nextInt(BRANDS.length)]);
+        product.put("price", BigDecimal.valueOf(500 + random.nextInt(200_000), 2));
+        product.put("inventory", random.nextInt(500));
+        product.put("description", "Load test " + name.toLowerCase() + ", generated from a fixed seed.");
+        product.put("category", Map.of("name", category));
+        return product;
+    }
+
+    static Map<String, Object> user(String id) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("firstName", "Load");
+        user.put("lastName", "Tester " + id);
+        user.put("email", "load-" + id + "@example.com");
+        user.put("password", "secret");
+        return user;
+    }
+
+    static byte[] sampleImage() {
+        // Larger than the medium variant, so uploads also exercise variant generation
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 1024, 768, Color.BLUE));
+        graphics.fillRect(0, 0, 1024, 768);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private JsonNode get(String path) {
+        return read(send(HttpRequest.newBuilder(URI.create(api + path)).GET().build()));
+    }
+
+    private JsonNode post(String path, Object body) {
+        return read(send(HttpRequest.newBuilder(URI.create(api + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build()));
+    }
+
+    private String send(HttpRequest request) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException(request.method() + " " + request.uri() + " failed with "
+                        + response.statusCode() + ": " + response.body());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted");
+        }
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dev.boxpoint.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response codes of one operation. Latencies are recorded in microseconds
+ * from the time the request was scheduled, so a stalled server shows up as latency
+ * instead of as fewer requests.
+ */
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long latencyNanos, int status) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    void recordFailure(long latencyNanos) {
+        // No response at all, e.g. a refused or reset connection
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        failures.increment();
+    }
+
+    void reset() {
+        latencies.reset();
+        statuses.clear();
+        failures.reset();
+    }
+
+    String name() {
+        return name;
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long errors() {
+        // 304 is a successful conditional GET, everything from 400 on is an error
+        long errors = failures.sum();
+        for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+            if (entry.getKey() >= 400) {
+                errors += entry.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+}
@@ -0,0 +1,267 @@
+package com.dev.boxpoint.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The request mix: catalog reads, search and image downloads make up most of it, with a
+ * share of writes on every controller. Existing keys are picked with a Zipfian
+ * distribution; deletes only remove rows the load test created itself, so the seeded
+ * keys stay valid for the whole run.
+ */
+final class LoadOperations {
+
+    private static final String[] SORTS = {"ID", "PRICE", "NAME"};
+    private static final String[] IMAGE_SIZES = {null, "thumb", "medium"};
+
+    private final String api;
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper;
+    private final ZipfianDistribution<Catalog.ProductKey> products;
+    private final ZipfianDistribution<Long> categories;
+    private final ZipfianDistribution<String> categoryNames;
+    private final ZipfianDistribution<String> brands;
+    private final ZipfianDistribution<Long> images;
+    private final ZipfianDistribution<Long> users;
+    private final byte[] imageContent = CatalogSeeder.sampleImage();
+
+    // Rows created during the run, the only ones the delete operations remove
+    private final Queue<Long> createdProducts = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> createdImages = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> createdUsers = new ConcurrentLinkedQueue<>();
+    // User and product id of the cart items added during the run
+    private final Queue<long[]> addedCartItems = new ConcurrentLinkedQueue<>();
+    private final Set<String> addedCartItemKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadOperations(String api, LoadTestConfig config, ObjectMapper objectMapper, Catalog catalog) {
+        this.api = api;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        double exponent = config.zipfExponent();
+        long seed = config.seed();
+        this.products = new ZipfianDistribution<>(catalog.products(), exponent, seed);
+        this.categories = new ZipfianDistribution<>(catalog.categoryIds(), exponent, seed + 1);
+        this.categoryNames = new ZipfianDistribution<>(catalog.categoryNames(), exponent, seed + 2);
+        this.brands = new ZipfianDistribution<>(catalog.brands(), exponent, seed + 3);
+        this.images = new ZipfianDistribution<>(catalog.imageIds(), exponent, seed + 4);
+        this.users = new ZipfianDistribution<>(catalog.userIds(), exponent, seed + 5);
+    }
+
+    List<Operation> all() {
+        List<Operation> operations = new ArrayList<>(List.of(
+                // ProductController
+                operation("product.list", 15, () -> get("/products/all?sort=" + pick(SORTS) + "&size=20")),
+                operation("product.get", 25, () -> get("/products/product/" + products.next().id() + "/product")),
+                operation("product.by-brand", 4, () -> get("/products/product/by-brand?brand=" + encode(brands.next()))),
+                operation("product.by-category", 4,
+                        () -> get("/products/product/" + encode(categoryNames.next()) + "/all/products")),
+                operation("product.by-category-and-brand", 2, () -> {
+                    Catalog.ProductKey product = products.next();
+                    return get("/products/products/by/category-and-brand?category=" + encode(product.category())
+                            + "&brandName=" + encode(product.brand()));
+                }),
+                operation("product.by-brand-and-name", 2, () -> {
+                    Catalog.ProductKey product = products.next();
+                    return get("/products/products/by/brand-and-name?brandName=" + encode(product.brand())
+                            + "&productName=" + encode(product.name()));
+                }),
+                operation("product.search", 8, () -> get("/products/products/"
+                        + encode(pick(CatalogSeeder.WORDS) + " " + pick(CatalogSeeder.WORDS)) + "/products")),
+                operation("product.cache-stats", 0.5, () -> get("/products/cache/stats")),
+                operation("product.export", 0.05, () -> get("/products/export?format=NDJSON")),
+                operation("product.add", 2, () -> post("/products/add", product(categoryNames.next())),
+                        body -> createdProducts.add(read(body).path("data").path("id").asLong())),
+                operation("product.update", 2, () -> {
+                    Map<String, Object> product = product(categoryNames.next());
+                    return put("/products/product/" + products.next().id() + "/update", product);
+                }),
+                operation("product.delete", 0.5,
+                        () -> taken(createdProducts, id -> delete("/products/product/" + id + "/delete"))),
+                operation("product.bulk-delete", 0.2, () -> {
+                    List<Long> ids = new ArrayList<>();
+                    Long id;
+                    while (ids.size() < 5 && (id = createdProducts.poll()) != null) {
+                        ids.add(id);
+                    }
+                    return ids.isEmpty() ? null : delete("/products?ids="
+                            + ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+                }),
+                operation("product.import", 0.2, () -> {
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < 10; i++) {
+                        body.append(json(product(categoryNames.next()))).append('\n');
+                    }
+                    return HttpRequest.newBuilder(uri("/products/import"))
+                            .header("Content-Type", "application/x-ndjson")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                            .build();
+                }),
+
+                // ImageController
+                operation("image.download", 12, () -> {
+                    String size = pick(IMAGE_SIZES);
+                    return get("/images/image/download/" + images.next() + (size == null ? "" : "?size=" + size));
+                }),
+                operation("image.upload", 1, () -> new Multipart()
+                                .file("files", "load-" + sequence.incrementAndGet() + ".jpg", "image/jpeg", imageContent)
+                                .field("productId", String.valueOf(products.next().id()))
+                                .post(uri("/images/upload")),
+                        body -> read(body).path("data").forEach(result -> {
+                            if (result.path("success").asBoolean()) {
+                                createdImages.add(result.path("image").path("id").asLong());
+                            }
+                        })),
+                operation("image.update", 0.3, () -> {
+                    // Peek, the image stays available for the delete operation
+                    Long id = createdImages.peek();
+                    return id == null ? null : new Multipart()
+                            .file("file", "load-" + sequence.incrementAndGet() + ".jpg", "image/jpeg", imageContent)
+                            .put(uri("/images/image/" + id + "/update"));
+                }),
+                operation("image.delete", 0.5,
+                        () -> taken(createdImages, id -> delete("/images/image/" + id + "/delete"))),
+
+                // CategoryController
+                operation("category.list", 3, () -> get("/categories/all")),
+                operation("category.get", 3, () -> get("/categories/category/" + categories.next() + "/category")),
+                operation("category.add", 0.2,
+                        () -> post("/categories/add", Map.of("name", "Load category " + sequence.incrementAndGet()))),
+
+                // UserController
+                operation("user.get", 3, () -> get("/users/user/" + users.next() + "/user")),
+                operation("user.add", 1, () -> post("/users/add", CatalogSeeder.user("run-" + sequence.incrementAndGet())),
+                        body -> createdUsers.add(read(body).path("data").path("id").asLong())),
+                operation("user.update", 1, () -> put("/users/" + users.next() + "/update",
+                        Map.of("firstName", "Load", "lastName", "Updated " + sequence.incrementAndGet()))),
+                operation("user.delete", 0.5, () -> taken(createdUsers, id -> delete("/users/" + id + "/delete"))),
+
+                // CartController, updates and removals only touch items the run added
+                operation("cart.get", 4, () -> get("/carts/user/" + users.next() + "/cart")),
+                operation("cart.add-item", 6, () -> {
+                    long[] item = {users.next(), products.next().id()};
+                    if (addedCartItemKeys.add(item[0] + ":" + item[1])) {
+                        addedCartItems.add(item);
+                    }
+                    return post("/carts/user/" + item[0] + "/items/add?productId=" + item[1]
+                            + "&quantity=" + ThreadLocalRandom.current().nextInt(1, 4), Map.of());
+                }),
+                operation("cart.update-item", 4, () -> {
+                    long[] item = addedCartItems.poll();
+                    if (item == null) {
+                        return null;
+                    }
+                    addedCartItems.add(item);
+                    return put("/carts/user/" + item[0] + "/items/" + item[1] + "/update?quantity="
+                            + ThreadLocalRandom.current().nextInt(1, 6), Map.of());
+                }),
+                operation("cart.remove-item", 2, () -> {
+                    long[] item = addedCartItems.poll();
+                    if (item == null) {
+                        return null;
+                    }
+                    addedCartItemKeys.remove(item[0] + ":" + item[1]);
+                    return delete("/carts/user/" + item[0] + "/items/" + item[1] + "/remove");
+                })));
+
+        operations.removeIf(operation -> operation.weight() <= 0);
+        return operations;
+    }
+
+    private Operation operation(String name, double weight, Supplier<HttpRequest> request) {
+        return new Operation(name, config.weight(name, weight), request);
+    }
+
+    private Operation operation(String name, double weight, Supplier<HttpRequest> request,
+                                Consumer<String> onResponse) {
+        return new Operation(name, config.weight(name, weight), request, onResponse);
+    }
+
+    private Map<String, Object> product(String category) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        long id = sequence.incrementAndGet();
+        product.put("name", pick(CatalogSeeder.WORDS) + " Load " + id);
+        product.put("brand", pick(CatalogSeeder.BRANDS));
+        product.put("price", ThreadLocalRandom.current().nextInt(500, 200_000) / 100.0);
+        product.put("inventory", ThreadLocalRandom.current().nextInt(500));
+        product.put("description", "Written by the load test run, " + id);
+        product.put("category", Map.of("name", category));
+        return product;
+    }
+
+    private static HttpRequest taken(Queue<Long> created, Function<Long, HttpRequest> request) {
+        Long id = created.poll();
+        return id == null ? null : request.apply(id);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build();
+    }
+
+    private HttpRequest put(String path, Object body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build();
+    }
+
+    private HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(uri(path)).DELETE().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(api + path);
+    }
+
+    private static <T> T pick(T[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.dev.boxpoint.loadtest;
+
+import com.dev.boxpoint.BoxpointApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a production-shaped request mix against the application and reports throughput
+ * and latency percentiles per endpoint. Without {@code -Dload.url} it starts the
+ * application on an embedded H2 database and seeds it first:
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dload.products=50000 -Dload.rate=500 -Dload.duration=2m
+ * </pre>
+ *
+ * Requests are sent at a fixed rate on virtual threads, independent of how fast earlier
+ * ones complete, and latency is measured from each request's scheduled start.
+ */
+public class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final List<Operation> operations;
+    private final double[] cumulativeWeights;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    LoadTest(LoadTestConfig config, HttpClient client, List<Operation> operations) {
+        this.config = config;
+        this.client = client;
+        this.operations = operations;
+
+        cumulativeWeights = new double[operations.size()];
+        double sum = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            sum += operations.get(i).weight();
+            cumulativeWeights[i] = sum;
+            stats.put(operations.get(i).name(), new EndpointStats(operations.get(i).name()));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        // Start the application on embedded H2 unless a running instance is given
+        ConfigurableApplicationContext context = null;
+        String api = config.url();
+        if (api.isBlank()) {
+            context = new SpringApplicationBuilder(BoxpointApplication.class).profiles("loadtest").run(args);
+            api = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("api.prefix");
+        }
+
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()) {
+            ObjectMapper objectMapper = new ObjectMapper();
+
+            Catalog catalog = new CatalogSeeder(client, api, config, objectMapper).seed();
+            List<Operation> operations = new LoadOperations(api, config, objectMapper, catalog).all();
+            new LoadTest(config, client, operations).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    void run() throws IOException {
+        System.out.printf("Warming up for %s at %d requests/s%n", config.warmup(), config.rate());
+        drive(config.warmup());
+        stats.values().forEach(EndpointStats::reset);
+
+        System.out.printf("Measuring for %s at %d requests/s%n", config.duration(), config.rate());
+        long start = System.nanoTime();
+        drive(config.duration());
+        report(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void drive(Duration duration) {
+        long interval = 1_000_000_000L / config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        // Closing the executor waits for the requests still in flight
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + i * interval;
+                if (scheduled >= end) {
+                    break;
+                }
+                while (System.nanoTime() < scheduled) {
+                    LockSupport.parkNanos(scheduled - System.nanoTime());
+                }
+                Operation operation = pick();
+                executor.execute(() -> execute(operation, scheduled));
+            }
+        }
+    }
+
+    private Operation pick() {
+        double value = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private void execute(Operation operation, long scheduled) {
+        // Operations without a key to use yet (e.g. deletes before anything was created) become a read
+        HttpRequest request = operation.request().get();
+        if (request == null) {
+            operation = operations.get(0);
+            request = operation.request().get();
+        }
+        EndpointStats endpoint = stats.get(operation.name());
+
+        try {
+            HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(REQUEST_TIMEOUT).build();
+            if (operation.onResponse() == null) {
+                HttpResponse<Void> response = client.send(timed, HttpResponse.BodyHandlers.discarding());
+                endpoint.record(System.nanoTime() - scheduled, response.statusCode());
+            } else {
+                HttpResponse<String> response = client.send(timed, HttpResponse.BodyHandlers.ofString());
+                endpoint.record(System.nanoTime() - scheduled, response.statusCode());
+                if (response.statusCode() < 300) {
+                    operation.onResponse().accept(response.body());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            endpoint.recordFailure(System.nanoTime() - scheduled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(Duration elapsed) throws IOException {
+        Files.createDirectories(config.reportDir());
+        double seconds = elapsed.toNanos() / 1e9;
+        Histogram total = new Histogram(3);
+
+        System.out.printf("%n%-32s %9s %7s %9s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        for (EndpointStats endpoint : stats.values()) {
+            Histogram latencies = endpoint.latencies();
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(latencies);
+            printRow(endpoint.name(), latencies, endpoint.errors(), seconds, endpoint.statuses().toString());
+            writePercentiles(endpoint.name(), latencies);
+        }
+        long errors = stats.values().stream().mapToLong(EndpointStats::errors).sum();
+        printRow("total", total, errors, seconds, "");
+        writePercentiles("total", total);
+
+        System.out.printf("%nPercentile distributions (HdrHistogram .hgrm, milliseconds) written to %s%n",
+                config.reportDir().toAbsolutePath());
+    }
+
+    private static void printRow(String name, Histogram latencies, long errors, double seconds, String statuses) {
+        System.out.printf("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                name,
+                latencies.getTotalCount(),
+                errors,
+                latencies.getTotalCount() / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                statuses);
+    }
+
+    private void writePercentiles(String name, Histogram latencies) throws IOException {
+        Path file = config.reportDir().resolve(name + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            // Recorded in microseconds, written in milliseconds
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.dev.boxpoint.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test settings, read from {@code -Dload.*} system properties.
+ *
+ * @param url        base URL of a running instance; empty starts the application on embedded H2
+ * @param products   products to seed
+ * @param categories categories to seed
+ * @param images     images to seed, spread over the products
+ * @param users      users to seed
+ * @param rate       requests per second, sent on schedule whether or not earlier ones finished
+ * @param warmup     time before latencies are recorded
+ * @param duration   measured time
+ * @param zipfExponent skew of the key distribution, 0 is uniform
+ * @param seed       seed for the data and the key choices
+ * @param reportDir  directory for the per-endpoint HdrHistogram percentile files
+ */
+record LoadTestConfig(
+        String url,
+        int products,
+        int categories,
+        int images,
+        int users,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        double zipfExponent,
+        long seed,
+        Path reportDir) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("load.url", ""),
+                Integer.getInteger("load.products", 10_000),
+                Integer.getInteger("load.categories", 20),
+                Integer.getInteger("load.images", 500),
+                Integer.getInteger("load.users", 200),
+                Integer.getInteger("load.rate", 200),
+                duration("load.warmup", "10s"),
+                duration("load.duration", "60s"),
+                Double.parseDouble(System.getProperty("load.zipf-exponent", "0.99")),
+                Long.getLong("load.seed", 42L),
+                Path.of(System.getProperty("load.report-dir", "target/loadtest")));
+    }
+
+    double weight(String operation, double defaultWeight) {
+        // Every operation's share of the mix can be changed, e.g. -Dload.weight.product.get=0
+        return Double.parseDouble(System.getProperty("load.weight." + operation, String.valueOf(defaultWeight)));
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+}
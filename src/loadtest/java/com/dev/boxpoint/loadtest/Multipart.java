@@ -0,0 +1,52 @@
+package com.dev.boxpoint.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Builds multipart/form-data bodies, which java.net.http has no publisher for.
+ */
+final class Multipart {
+
+    private final String boundary = "boxpoint-" + UUID.randomUUID();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    Multipart file(String name, String fileName, String contentType, byte[] content) {
+        write("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n");
+        body.writeBytes(content);
+        write("\r\n");
+        return this;
+    }
+
+    Multipart field(String name, String value) {
+        write("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n");
+        return this;
+    }
+
+    HttpRequest post(URI uri) {
+        return request(uri, "POST");
+    }
+
+    HttpRequest put(URI uri) {
+        return request(uri, "PUT");
+    }
+
+    private HttpRequest request(URI uri, String method) {
+        write("--" + boundary + "--\r\n");
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private void write(String text) {
+        body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
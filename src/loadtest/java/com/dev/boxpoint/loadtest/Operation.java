@@ -0,0 +1,20 @@
+package com.dev.boxpoint.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One endpoint of the mix.
+ *
+ * @param name       name the results are reported under
+ * @param weight     relative share of the requests
+ * @param request    builds the next request, or returns null when there is no key to use yet
+ * @param onResponse receives the body of successful responses, or null to discard bodies
+ */
+record Operation(String name, double weight, Supplier<HttpRequest> request, Consumer<String> onResponse) {
+
+    Operation(String name, double weight, Supplier<HttpRequest> request) {
+        this(name, weight, request, null);
+    }
+}
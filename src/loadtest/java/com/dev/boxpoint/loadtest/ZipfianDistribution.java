@@ -0,0 +1,51 @@
+package com.dev.boxpoint.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks keys with Zipf-distributed popularity: the key of rank k is chosen with a weight
+ * of 1 / k^exponent. Ranks are assigned to the keys in a seeded random order, so the hot
+ * keys are not simply the oldest rows.
+ */
+final class ZipfianDistribution<T> {
+
+    private final List<T> keys;
+    private final double[] cumulative;
+
+    ZipfianDistribution(List<T> keys, double exponent, long seed) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("No keys to choose from");
+        }
+
+        Object[] shuffled = keys.toArray();
+        Random random = new Random(seed);
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> ranked = (List<T>) Arrays.asList(shuffled);
+        this.keys = ranked;
+
+        // Cumulative probabilities by rank, searched on every pick
+        cumulative = new double[shuffled.length];
+        double sum = 0;
+        for (int rank = 0; rank < shuffled.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < cumulative.length; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    T next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return keys.get(Math.min(index < 0 ? -index - 1 : index, keys.size() - 1));
+    }
+}
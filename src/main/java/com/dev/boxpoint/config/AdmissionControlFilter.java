@@ -0,0 +1,148 @@
+package com.dev.boxpoint.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many requests are handled at once when requests run on virtual threads.
+ * Tomcat no longer caps them at its thread pool size, so without this limit every request
+ * would queue inside Hikari for a connection until it times out. A request that cannot be
+ * admitted within the wait budget is answered with 503 and Retry-After right away.
+ * Async requests (exports, imports, downloads of images still in the database) keep their
+ * permit until the async body ends, since that is where they hold a connection. A handler
+ * whose async body needs no connection, like a download streamed from the image storage,
+ * sets {@link #ASYNC_WITHOUT_CONNECTION}, so slow clients cannot hold every permit. The filter
+ * runs inside the observation filter, so rejected requests show up in
+ * {@code http.server.requests} as 503s.
+ */
+@Component
+// Right after ServerHttpObservationFilter, which is registered at HIGHEST_PRECEDENCE + 1
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    // Request attribute: the async body reads no database, the permit goes back when the handler returns
+    public static final String ASYNC_WITHOUT_CONNECTION = AdmissionControlFilter.class.getName() + ".ASYNC_WITHOUT_CONNECTION";
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final String retryAfterSeconds;
+    private final Counter rejected;
+
+    public AdmissionControlFilter(
+            // Defaults to the connection pool size, every admitted request can get a connection
+            @Value("${requests.admission.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${requests.admission.max-wait:100ms}") Duration maxWait,
+            @Value("${requests.admission.retry-after:1s}") Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+
+        // Free permits and shed requests show how close the app runs to its limit
+        Gauge.builder("requests.admission.available", permits, Semaphore::availablePermits)
+                .description("Requests that can still be admitted without waiting")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("requests.admission.rejected")
+                .description("Requests answered with 503 because no permit was free in time")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Health checks and metric scrapes must get through exactly when the app is busy
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            // Wait for a permit no longer than the budget
+            admitted = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+
+        if (!admitted) {
+            // Shed the request quickly instead of letting it queue for a connection
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server is busy, try again later!");
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted() && request.getAttribute(ASYNC_WITHOUT_CONNECTION) == null;
+        } finally {
+            if (async) {
+                // The async body still runs and holds a connection, release the permit when it ends
+                request.getAsyncContext().addListener(new PermitRelease());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    private final class PermitRelease implements AsyncListener {
+
+        // An error or timeout is followed by onComplete, the permit must only be released once
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The request started another async cycle, listeners have to register again to hear its end
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.dev.boxpoint.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Converted ProductDto by product id, size and TTL are set in application.properties
+    public static final String PRODUCTS = "products";
+}
@@ -0,0 +1,57 @@
+package com.dev.boxpoint.controller;
+
+import com.dev.boxpoint.dtos.CartDto;
+import com.dev.boxpoint.response.ApiResponse;
+import com.dev.boxpoint.service.cart.ICartService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("${api.prefix}/carts")
+public class CartController {
+
+    private final ICartService cartService;
+
+    @GetMapping("/user/{userId}/cart")
+    public ResponseEntity<ApiResponse> getCart(@PathVariable Long userId) {
+        CartDto cart = cartService.getCart(userId);
+
+        return ResponseEntity.ok(new ApiResponse("Found!", cart));
+    }
+
+    @PostMapping("/user/{userId}/items/add")
+    public ResponseEntity<ApiResponse> addItem(
+            @PathVariable Long userId,
+            @RequestParam Long productId,
+            @RequestParam(defaultValue = "1") int quantity) {
+        CartDto cart = cartService.addItem(userId, productId, quantity);
+
+        return ResponseEntity.ok(new ApiResponse("Add item successfully!", cart));
+    }
+
+    @PutMapping("/user/{userId}/items/{productId}/update")
+    public ResponseEntity<ApiResponse> updateItemQuantity(
+            @PathVariable Long userId,
+            @PathVariable Long productId,
+            @RequestParam int quantity) {
+        CartDto cart = cartService.updateItemQuantity(userId, productId, quantity);
+
+        return ResponseEntity.ok(new ApiResponse("Update item successfully!", cart));
+    }
+
+    @DeleteMapping("/user/{userId}/items/{productId}/remove")
+    public ResponseEntity<ApiResponse> removeItem(@PathVariable Long userId, @PathVariable Long productId) {
+        CartDto cart = cartService.removeItem(userId, productId);
+
+        return ResponseEntity.ok(new ApiResponse("Remove item successfully!", cart));
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,11 +17,13 @@ public class CategoryController {
     private final ICategoryService categoryService;
 
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse> getAllCategories() {
+    public ResponseEntity<ApiResponse> getAllCategories(WebRequest webRequest) {
         // Get all categories and add into a list
         List<Category> categories = categoryService.getAllCategories();
 
-        return ResponseEntity.ok(new ApiResponse("FOUND", categories));
+        // Answer 304 if the client already has this list
+        return ConditionalResponses.ok(webRequest, categoryService.getCategoriesVersion(categories),
+                () -> new ApiResponse("FOUND", categories));
     }
 
     @PostMapping("/add")
@@ -32,10 +35,12 @@ public class CategoryController {
     }
 
     @GetMapping("/category/{id}/category")
-    public ResponseEntity<ApiResponse> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
         // Get category by id
         Category theCategory = categoryService.findCategoryById(id);
 
-        return ResponseEntity.ok(new ApiResponse("Success", theCategory));
+        // Answer 304 if the client already has this version
+        return ConditionalResponses.ok(webRequest, categoryService.getCategoryVersion(theCategory),
+                () -> new ApiResponse("Success", theCategory));
     }
 }
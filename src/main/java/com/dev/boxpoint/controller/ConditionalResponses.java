@@ -0,0 +1,43 @@
+package com.dev.boxpoint.controller;
+
+import com.dev.boxpoint.dtos.ResourceVersionDto;
+import com.dev.boxpoint.response.ApiResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for the catalog endpoints: answers 304 while the client's validators
+ * still match, otherwise builds the body and sends it together with the validators.
+ */
+final class ConditionalResponses {
+
+    // Clients and shared caches may store the response, but have to revalidate it before reuse
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private ConditionalResponses() {
+    }
+
+    static ResponseEntity<ApiResponse> ok(WebRequest webRequest, ResourceVersionDto version, Supplier<ApiResponse> body) {
+        long lastModified = version.getLastModified() == null ? -1 : version.getLastModified().toEpochMilli();
+
+        // Nothing changed since the client's copy: skip building the body
+        if (webRequest.checkNotModified(version.getEtag(), lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(version.getEtag())
+                    .cacheControl(CACHE_CONTROL)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(version.getEtag())
+                .cacheControl(CACHE_CONTROL);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body.get());
+    }
+}
@@ -1,54 +1,138 @@
 package com.dev.boxpoint.controller;
 
-import com.dev.boxpoint.dtos.ImageDto;
-import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.config.AdmissionControlFilter;
+import com.dev.boxpoint.dtos.ImageUploadResultDto;
+import com.dev.boxpoint.enums.ImageVariant;
+import com.dev.boxpoint.projection.ImageFileView;
 import com.dev.boxpoint.response.ApiResponse;
 import com.dev.boxpoint.service.image.IImageService;
-import java.sql.SQLException;
+import com.dev.boxpoint.service.image.ImageMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("${api.prefix}/images")
 public class ImageController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final IImageService imageService;
+    private final ImageMetrics imageMetrics;
 
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse> uploadImages(
             @RequestParam("files") List<MultipartFile> files,
             @RequestParam("productId") Long productId) {
         // Call the service layer to save all uploaded images linked to the given product ID
-        List<ImageDto> imageDto = imageService.saveImages(productId, files);
+        List<ImageUploadResultDto> results = imageService.saveImages(productId, files);
+
+        // Report per file whether it was saved, the batch is not failed by a single bad file
+        boolean allSaved = results.stream().allMatch(ImageUploadResultDto::isSuccess);
+        String message = allSaved ? "Images uploaded successfully!" : "Some images could not be uploaded!";
 
-        return ResponseEntity.ok(new ApiResponse("Images uploaded successfully!", imageDto));
+        return ResponseEntity.ok(new ApiResponse(message, results));
     }
 
     @GetMapping("/image/download/{imageId}")
-    public ResponseEntity<Resource> downloadImage(@PathVariable Long imageId) throws SQLException {
-        // Get the Image object from the database using its ID
-        Image image = imageService.getImageById(imageId);
+    public ResponseEntity<StreamingResponseBody> downloadImage(
+            @PathVariable Long imageId,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest webRequest,
+            HttpServletRequest servletRequest) {
+        // Get the image metadata (name, type, size and content hash), not the image itself
+        ImageFileView original = imageService.getImageFile(imageId);
+
+        // A size asks for a resized variant (thumb or medium) instead of the original
+        ImageFileView image = size == null
+                ? original
+                : imageService.getImageVariant(original, ImageVariant.fromParam(size));
+
+        // The content hash is a strong ETag: answer 304 if the client already has this version
+        String etag = "\"" + image.contentHash() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-        // Convert the image BLOB (binary data stored in database) into a byte array
-        ByteArrayResource resource = new ByteArrayResource(
-                image.getImage().getBytes(1, (int) image.getImage().length()));
+        long fileSize = image.fileSize();
+        long start = 0;
+        long length = fileSize;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
 
-        // Build and return an HTTP response containing the image file
-        return ResponseEntity.ok() // Returns a 200 OK HTTP status
+        // Serve a single byte range when asked for one (and the If-Range version still matches)
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(fileSize);
+                    long end = ranges.get(0).getRangeEnd(fileSize);
+                    if (start >= fileSize || end < start) {
+                        throw new IllegalArgumentException("Range outside the image");
+                    }
+                    length = end - start + 1;
+                    response = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+                }
+            } catch (IllegalArgumentException e) {
+                // The range is malformed or outside the image
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                        .build();
+            }
+        }
+
+        long offset = start;
+        long count = length;
+
+        // Build the HTTP response headers
+        response = response
                 // Set the Content-Type header based on the image file type (e.g. image/jpeg)
-                .contentType(MediaType.parseMediaType(image.getFileType()))
+                .contentType(MediaType.parseMediaType(image.fileType()))
+                .contentLength(count)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 // Set the Content-Disposition header so the browser knows this is a downloadable file
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
-                        + image.getFileName() + "\"")
-                .body(resource);
+                        + image.fileName() + "\"");
+
+        // Files on local disk are handed to Tomcat's sendfile, which copies them in the kernel
+        Optional<Path> localFile = imageService.findLocalFile(image);
+        if (localFile.isPresent() && Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORT))) {
+            servletRequest.setAttribute(SENDFILE_FILENAME, localFile.get().toString());
+            servletRequest.setAttribute(SENDFILE_START, offset);
+            servletRequest.setAttribute(SENDFILE_END, offset + count);
+            imageMetrics.recordDownload(count);
+            return response.build();
+        }
+
+        // Otherwise stream the image from the image storage (or database) in chunks; from the
+        // storage that holds no database connection, so it does not hold an admission permit either
+        if (image.storageKey() != null) {
+            servletRequest.setAttribute(AdmissionControlFilter.ASYNC_WITHOUT_CONNECTION, true);
+        }
+        return response.body(out -> {
+            imageService.writeImage(image, offset, count, out);
+            imageMetrics.recordDownload(count);
+        });
     }
 
     @PutMapping("/image/{imageId}/update")
@@ -0,0 +1,43 @@
+package com.dev.boxpoint.controller;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.OrderDto;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.response.ApiResponse;
+import com.dev.boxpoint.service.order.IOrderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("${api.prefix}/orders")
+public class OrderController {
+
+    private final IOrderService orderService;
+
+    @PostMapping("/user/{userId}/place")
+    public ResponseEntity<ApiResponse> placeOrder(@PathVariable Long userId) {
+        // Order everything in the user's cart
+        Order order = orderService.placeOrder(userId);
+        OrderDto orderDto = orderService.convertToDto(order);
+
+        return ResponseEntity.ok(new ApiResponse("Place order successfully!", orderDto));
+    }
+
+    @GetMapping("/user/{userId}/orders")
+    public ResponseEntity<ApiResponse> getOrderHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        // Newest orders first, continued from the cursor of the previous page
+        CursorPageDto<OrderDto> orders = orderService.getOrderHistory(userId, cursor, size);
+
+        return ResponseEntity.ok(new ApiResponse("Get order history successfully!", orders));
+    }
+}
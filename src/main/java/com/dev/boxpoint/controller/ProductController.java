@@ -1,15 +1,36 @@
 package com.dev.boxpoint.controller;
 
+import com.dev.boxpoint.dtos.CursorPageDto;
 import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.dtos.ProductImportEventDto;
+import com.dev.boxpoint.enums.DataFormat;
+import com.dev.boxpoint.enums.ProductSort;
 import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ProductView;
 import com.dev.boxpoint.request.AddProductRequest;
 import com.dev.boxpoint.request.UpdateProductRequest;
 import com.dev.boxpoint.response.ApiResponse;
+import com.dev.boxpoint.service.product.IProductExportService;
+import com.dev.boxpoint.service.product.IProductImportService;
 import com.dev.boxpoint.service.product.IProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 @RestController
 @RequiredArgsConstructor
@@ -17,29 +38,43 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final IProductService productService;
+    private final IProductImportService productImportService;
+    private final IProductExportService productExportService;
+    private final ObjectMapper objectMapper;
 
-    @GetMapping("/all")
-    public ResponseEntity<ApiResponse> getAllProducts() {
-        // Retrieve all products from the service layer
-        List<Product> products = productService.getAllProducts();
+    @Value("${products.import.timeout:1h}")
+    private Duration importTimeout;
 
-        // Convert Product entities to ProductDto for a clean response, including related images
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
+    @Value("${products.export.timeout:1h}")
+    private Duration exportTimeout;
 
-        // Return 200 OK with the list of DTOs
-        return ResponseEntity.ok(new ApiResponse("FOUND", convertedProducts));
+    @GetMapping("/all")
+    public ResponseEntity<ApiResponse> getAllProducts(
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        // Retrieve one page of products from the service layer, starting after the cursor
+        Window<ProductView> products = productService.getAllProducts(sort, cursor, size);
+
+        // Answer 304 without converting the page if the client already has it, otherwise
+        // convert the product projections to ProductDto for a clean response, including related images
+        return ConditionalResponses.ok(webRequest, productService.getPageVersion(products),
+                () -> new ApiResponse("FOUND", productService.getConvertedPage(products, sort)));
     }
 
     @GetMapping("/product/{productId}/product")
-    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId) {
-        // Retrieve product by its ID
-        Product product = productService.getProductById(productId);
-
-        // Convert entity to DTO for the response
-        ProductDto productDto = productService.convertToDto(product);
+    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId, WebRequest webRequest) {
+        // Answer 304 from the version columns alone if the client already has this version,
+        // otherwise retrieve the converted product (served from the product cache when possible)
+        return ConditionalResponses.ok(webRequest, productService.getProductVersion(productId),
+                () -> new ApiResponse("FOUND", productService.getProductDtoById(productId)));
+    }
 
-        // Return 200 OK with the found product DTO
-        return ResponseEntity.ok(new ApiResponse("FOUND", productDto));
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getCacheStats() {
+        // Return hit, miss and eviction counters of the product cache
+        return ResponseEntity.ok(new ApiResponse("success", productService.getCacheStats()));
     }
 
     @PostMapping("/add")
@@ -53,6 +88,51 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse("Product successfully added!", productDto));
     }
 
+    @PostMapping(value = "/import", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> importProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Pick CSV or NDJSON from the request's content type before anything is streamed
+        DataFormat format = DataFormat.fromContentType(request.getContentType());
+        // Read the CSV header now, so a bad one is answered with 400 instead of an event after the 200
+        IProductImportService.ProductImport productImport =
+                productImportService.prepareImport(request.getInputStream(), format);
+
+        // Read the rows and stream per-row errors and progress back as NDJSON lines, for up to
+        // products.import.timeout instead of spring.mvc.async.request-timeout
+        return new WebAsyncTask<>(importTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            OutputStream out = response.getOutputStream();
+            productImport.run(event -> writeEvent(out, event));
+            return null;
+        });
+    }
+
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportProducts(
+            @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            HttpServletResponse response) {
+        response.setContentType(format.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + format.getExtension() + "\"");
+
+        // Stream the whole catalog while it is read, instead of building it in memory first,
+        // for up to products.export.timeout instead of spring.mvc.async.request-timeout
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            productExportService.exportProducts(format, response.getOutputStream());
+            return null;
+        });
+    }
+
+    private void writeEvent(OutputStream out, ProductImportEventDto event) {
+        try {
+            // One JSON object per line, flushed so the client sees progress while the import runs
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @PutMapping("/product/{productId}/update")
     public ResponseEntity<ApiResponse> updateProduct(
             @RequestBody UpdateProductRequest request,
@@ -75,63 +155,90 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse("Product successfully deleted!", productId));
     }
 
+    @DeleteMapping
+    public ResponseEntity<ApiResponse> deleteProducts(@RequestParam List<Long> ids) {
+        // Delete all given products with a fixed number of statements
+        int deleted = productService.deleteProducts(new HashSet<>(ids));
+
+        // Return 200 OK with how many of the products existed and were deleted
+        return ResponseEntity.ok(new ApiResponse("Products successfully deleted!", deleted));
+    }
+
     @GetMapping("/products/by/brand-and-name")
     public ResponseEntity<ApiResponse> getProductByBrandAndName(
             @RequestParam String brandName,
-            @RequestParam String productName) {
+            @RequestParam String productName,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         // Search for products by both brand name and product name
-        List<Product> products = productService.getProductsByBrandAndName(brandName, productName);
-        // Convert results to DTOs
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
+        Window<ProductView> products = productService.getProductsByBrandAndName(brandName, productName, sort, cursor, size);
 
-        // Return 200 OK with the filtered list
-        return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
+        // Answer 304 without converting the page if the client already has it,
+        // otherwise convert the products to DTOs
+        return ConditionalResponses.ok(webRequest, productService.getPageVersion(products),
+                () -> new ApiResponse("success", productService.getConvertedPage(products, sort)));
     }
 
     @GetMapping("/products/by/category-and-brand")
     public ResponseEntity<ApiResponse> getProductByCategoryAndBrand(
             @RequestParam String category,
-            @RequestParam String brandName
-    ) {
+            @RequestParam String brandName,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         // Search for products by both category and brand name
-        List<Product> products = productService.getProductsByCategoryAndBrand(category, brandName);
-        // Convert results to DTOs
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
+        Window<ProductView> products = productService.getProductsByCategoryAndBrand(category, brandName, sort, cursor, size);
 
-        // Return 200 OK with the filtered list
-        return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
+        // Answer 304 without converting the page if the client already has it,
+        // otherwise convert the products to DTOs
+        return ConditionalResponses.ok(webRequest, productService.getPageVersion(products),
+                () -> new ApiResponse("success", productService.getConvertedPage(products, sort)));
     }
 
     @GetMapping("/products/{name}/products")
-    public ResponseEntity<ApiResponse> getProductByName(@PathVariable String name) {
-        // Search for products whose name contains the given string
-        List<Product> products = productService.getProductsByName(name);
-        // Convert results to DTOs
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
-
-        // Return 200 OK with the list of matching products
+    public ResponseEntity<ApiResponse> getProductByName(
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        // Search name, brand, description and category for the given words, best matches first
+        CursorPageDto<ProductDto> convertedProducts = productService.searchProducts(name, cursor, size);
+
+        // Return 200 OK with the page of matching products
         return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
     }
 
     @GetMapping("/product/by-brand")
-    public ResponseEntity<ApiResponse> findProductByBrand(@RequestParam String brand) {
+    public ResponseEntity<ApiResponse> findProductByBrand(
+            @RequestParam String brand,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         // Search for products by a specific brand
-        List<Product> products = productService.getProductsByBrand(brand);
-        // Convert results to DTOs
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
+        Window<ProductView> products = productService.getProductsByBrand(brand, sort, cursor, size);
 
-        // Return 200 OK with the list of matching products
-        return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
+        // Answer 304 without converting the page if the client already has it,
+        // otherwise convert the products to DTOs
+        return ConditionalResponses.ok(webRequest, productService.getPageVersion(products),
+                () -> new ApiResponse("success", productService.getConvertedPage(products, sort)));
     }
 
     @GetMapping("/product/{category}/all/products")
-    public ResponseEntity<ApiResponse> findProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<ApiResponse> findProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         // Search for all products within a specific category
-        List<Product> products = productService.getProductsByCategory(category);
-        // Convert results to DTOs
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
+        Window<ProductView> products = productService.getProductsByCategory(category, sort, cursor, size);
 
-        // Return 200 OK with the list of matching products
-        return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
+        // Answer 304 without converting the page if the client already has it,
+        // otherwise convert the products to DTOs
+        return ConditionalResponses.ok(webRequest, productService.getPageVersion(products),
+                () -> new ApiResponse("success", productService.getConvertedPage(products, sort)));
     }
 }
@@ -0,0 +1,9 @@
+package com.dev.boxpoint.dtos;
+
+import lombok.Data;
+
+@Data
+public class CategoryDto {
+    private Long id;
+    private String name;
+}
@@ -2,9 +2,13 @@ package com.dev.boxpoint.dtos;
 
 import lombok.Data;
 
+import java.util.Map;
+
 @Data
 public class ImageDto {
     private Long id;
     private String fileName;
     private String downloadUrl;
+    // Variant name (thumb, medium) -> download URL of the resized image
+    private Map<String, String> variantUrls;
 }
@@ -0,0 +1,13 @@
+package com.dev.boxpoint.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImageUploadResultDto {
+    private String fileName;
+    private boolean success;
+    private ImageDto image;
+    private String error;
+}
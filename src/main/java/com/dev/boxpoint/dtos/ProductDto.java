@@ -1,6 +1,5 @@
 package com.dev.boxpoint.dtos;
 
-import com.dev.boxpoint.model.Category;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -14,6 +13,7 @@ public class ProductDto {
     private BigDecimal price;
     private int Inventory;
     private String description;
-    private Category category;
+    private CategoryDto category;
     private List<ImageDto> images;
+    private Long version;
 }
@@ -0,0 +1,37 @@
+package com.dev.boxpoint.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One line of the import response: an error for a single row, progress after each chunk,
+ * or the final summary.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportEventDto {
+    private String type;
+    private Long row;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+
+    public static ProductImportEventDto error(long row, String message) {
+        return new ProductImportEventDto("error", row, message, null, null, null);
+    }
+
+    public static ProductImportEventDto progress(long processed, long imported, long failed) {
+        return new ProductImportEventDto("progress", null, null, processed, imported, failed);
+    }
+
+    public static ProductImportEventDto done(long processed, long imported, long failed) {
+        return new ProductImportEventDto("done", null, null, processed, imported, failed);
+    }
+
+    public static ProductImportEventDto aborted(String message, long processed, long imported, long failed) {
+        return new ProductImportEventDto("aborted", null, message, processed, imported, failed);
+    }
+}
@@ -0,0 +1,27 @@
+package com.dev.boxpoint.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * HTTP validators of a resource: its ETag and, when it has a single modification time, its Last-Modified.
+ */
+@Data
+@AllArgsConstructor
+public class ResourceVersionDto {
+    private String etag;
+    private Instant lastModified;
+
+    public static ResourceVersionDto ofEntries(Stream<String> entries) {
+        // A collection has no single modification time (removals do not move it), so it is validated by ETag only
+        String state = entries.collect(Collectors.joining("|"));
+        return new ResourceVersionDto(
+                "\"" + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + "\"", null);
+    }
+}
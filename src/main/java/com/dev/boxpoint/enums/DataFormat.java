@@ -0,0 +1,41 @@
+package com.dev.boxpoint.enums;
+
+import com.dev.boxpoint.exceptions.BadRequestException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+public enum DataFormat {
+    CSV(MediaType.parseMediaType("text/csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    DataFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static DataFormat fromContentType(String contentType) {
+        // Pick the row format from the request body's media type
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType == null ? "" : contentType);
+            for (DataFormat format : values()) {
+                if (mediaType.isCompatibleWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // A missing or malformed Content-Type is answered like an unsupported one
+        }
+        throw new BadRequestException("Body must be text/csv or application/x-ndjson!");
+    }
+}
@@ -0,0 +1,38 @@
+package com.dev.boxpoint.enums;
+
+import com.dev.boxpoint.exceptions.BadRequestException;
+
+import java.util.Locale;
+
+public enum ImageVariant {
+    THUMB(150),
+    MEDIUM(600);
+
+    private final int maxSize;
+
+    ImageVariant(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String getParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public String keyOf(String storageKey) {
+        // Variants are stored next to the original, under the original's key plus a suffix
+        return storageKey + "-" + getParam() + ".jpg";
+    }
+
+    public static ImageVariant fromParam(String param) {
+        for (ImageVariant variant : values()) {
+            if (variant.getParam().equalsIgnoreCase(param)) {
+                return variant;
+            }
+        }
+        throw new BadRequestException("Unknown image size " + param + "!");
+    }
+}
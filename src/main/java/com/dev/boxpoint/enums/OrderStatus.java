@@ -1,9 +1,26 @@
 package com.dev.boxpoint.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * The statuses an order can advance to this one from; an order in any other status
+     * does not change.
+     */
+    public Set<OrderStatus> advancesFrom() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(OrderStatus.class);
+            case PROCESSING -> EnumSet.of(PENDING);
+            case SHIPPED -> EnumSet.of(PROCESSING);
+            case DELIVERED -> EnumSet.of(SHIPPED);
+            case CANCELLED -> EnumSet.of(PENDING, PROCESSING);
+        };
+    }
 }
@@ -0,0 +1,24 @@
+package com.dev.boxpoint.enums;
+
+import org.springframework.data.domain.Sort;
+
+public enum ProductSort {
+    ID("id"),
+    PRICE("price"),
+    NAME("name");
+
+    private final String property;
+
+    ProductSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort toSort() {
+        // Always finish with id so the keyset stays unique when prices or names repeat
+        return this == ID ? Sort.by("id") : Sort.by(property).and(Sort.by("id"));
+    }
+}
@@ -0,0 +1,11 @@
+package com.dev.boxpoint.exceptions;
+
+/**
+ * Thrown when a request's parameters or body cannot be served as sent, answered with 400.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.dev.boxpoint.exceptions;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when an order asks for more of a product than is in stock; nothing of the order
+ * was reserved.
+ */
+@Getter
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+
+    public InsufficientStockException(List<Long> productIds) {
+        super("Not enough stock for products " + productIds + "!");
+        this.productIds = productIds;
+    }
+}
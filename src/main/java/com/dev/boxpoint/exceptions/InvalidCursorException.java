@@ -0,0 +1,11 @@
+package com.dev.boxpoint.exceptions;
+
+/**
+ * Thrown when a page cursor was not issued by the endpoint, or for a different sort.
+ */
+public class InvalidCursorException extends BadRequestException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.dev.boxpoint.mapper;
+
+import com.dev.boxpoint.dtos.CartDto;
+import com.dev.boxpoint.dtos.CartItemDto;
+import com.dev.boxpoint.model.Cart;
+import com.dev.boxpoint.model.CartItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface CartMapper {
+    // Items are converted by CartService, with their products from the product cache
+    @Mapping(source = "id", target = "cartId")
+    @Mapping(target = "items", ignore = true)
+    CartDto toDto(Cart cart);
+
+    @Mapping(source = "id", target = "itemId")
+    @Mapping(target = "product", ignore = true)
+    CartItemDto toDto(CartItem cartItem);
+}
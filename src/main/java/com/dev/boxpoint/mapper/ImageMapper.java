@@ -0,0 +1,41 @@
+package com.dev.boxpoint.mapper;
+
+import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.enums.ImageVariant;
+import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.projection.ImageView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Mapper(componentModel = "spring")
+public abstract class ImageMapper {
+    // Same prefix as ImageController's mapping, so the URL follows a changed api.prefix
+    @Value("${api.prefix}/images/image/download/")
+    private String downloadPath;
+
+    @Mapping(target = "downloadUrl", expression = "java(downloadUrl(image.getId()))")
+    @Mapping(target = "variantUrls", expression = "java(variantUrls(image.getId()))")
+    public abstract ImageDto toDto(Image image);
+
+    @Mapping(target = "downloadUrl", expression = "java(downloadUrl(image.getId()))")
+    @Mapping(target = "variantUrls", expression = "java(variantUrls(image.getId()))")
+    public abstract ImageDto toDto(ImageView image);
+
+    protected String downloadUrl(Long imageId) {
+        // The download URL is derived from the id, so it never has to be stored
+        return downloadPath + imageId;
+    }
+
+    protected Map<String, String> variantUrls(Long imageId) {
+        // Every variant is listed; until it is generated its URL serves the original
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (ImageVariant variant : ImageVariant.values()) {
+            urls.put(variant.getParam(), downloadUrl(imageId) + "?size=" + variant.getParam());
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,33 @@
+package com.dev.boxpoint.mapper;
+
+import com.dev.boxpoint.dtos.OrderDto;
+import com.dev.boxpoint.dtos.OrderItemDto;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.projection.OrderItemView;
+import com.dev.boxpoint.projection.OrderView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface OrderMapper {
+    @Mapping(source = "orderId", target = "id")
+    @Mapping(source = "user.id", target = "userId")
+    @Mapping(source = "orderStatus", target = "status")
+    @Mapping(source = "orderItems", target = "items")
+    OrderDto toDto(Order order);
+
+    @Mapping(source = "product.id", target = "productId")
+    @Mapping(source = "product.name", target = "productName")
+    @Mapping(source = "product.brand", target = "productBrand")
+    OrderItemDto toDto(OrderItem orderItem);
+
+    // The user and the items are filled in by OrderService
+    @Mapping(source = "orderId", target = "id")
+    @Mapping(source = "orderStatus", target = "status")
+    @Mapping(target = "userId", ignore = true)
+    @Mapping(target = "items", ignore = true)
+    OrderDto toDto(OrderView order);
+
+    OrderItemDto toDto(OrderItemView orderItem);
+}
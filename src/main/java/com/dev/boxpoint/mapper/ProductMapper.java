@@ -0,0 +1,30 @@
+package com.dev.boxpoint.mapper;
+
+import com.dev.boxpoint.dtos.CategoryDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ProductView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface ProductMapper {
+    // Images are loaded in batch by ProductService, never through the lazy collection
+    @Mapping(target = "images", ignore = true)
+    ProductDto toDto(Product product);
+
+    @Mapping(target = "images", ignore = true)
+    @Mapping(target = "category", expression = "java(category(product))")
+    ProductDto toDto(ProductView product);
+
+    default CategoryDto category(ProductView product) {
+        // The projection carries the category's columns, a product without category has none
+        if (product.categoryId() == null) {
+            return null;
+        }
+        CategoryDto category = new CategoryDto();
+        category.setId(product.categoryId());
+        category.setName(product.categoryName());
+        return category;
+    }
+}
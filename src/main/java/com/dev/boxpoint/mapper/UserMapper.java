@@ -0,0 +1,10 @@
+package com.dev.boxpoint.mapper;
+
+import com.dev.boxpoint.dtos.UserDto;
+import com.dev.boxpoint.model.User;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", uses = {OrderMapper.class, CartMapper.class})
+public interface UserMapper {
+    UserDto toDto(User user);
+}
@@ -8,6 +8,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 
 @Getter
@@ -29,13 +30,26 @@ public class Cart {
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<CartItem> items = new HashSet<>();
 
+    public Optional<CartItem> findItem(Long productId) {
+        return items.stream()
+                .filter(item -> item.getProduct().getId().equals(productId))
+                .findFirst();
+    }
+
+    public void addItem(CartItem cartItem) {
+        this.items.add(cartItem);
+        cartItem.setCart(this);
+        updateTotalAmount(cartItem.getTotalPrice());
+    }
+
     public void removeItem(CartItem cartItem) {
         this.items.remove(cartItem);
         cartItem.setCart(null);
-        updateTotalAmount();
+        updateTotalAmount(cartItem.getTotalPrice().negate());
     }
 
-    private void updateTotalAmount() {
-
+    void updateTotalAmount(BigDecimal delta) {
+        // Only the change of one item is applied, the other items are not summed again
+        this.totalAmount = Optional.ofNullable(totalAmount).orElse(BigDecimal.ZERO).add(delta);
     }
 }
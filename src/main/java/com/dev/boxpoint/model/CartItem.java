@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -22,15 +23,22 @@ public class CartItem {
     private BigDecimal unitPrice;
     private BigDecimal totalPrice;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    // Removing an item must never remove its product or cart
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id")
     private Cart cart;
 
     public void setTotalPrice() {
+        BigDecimal previous = Optional.ofNullable(totalPrice).orElse(BigDecimal.ZERO);
         this.totalPrice = this.unitPrice.multiply(new BigDecimal(quantity));
+
+        // The cart's total moves by the same amount as this item's
+        if (cart != null) {
+            cart.updateTotalAmount(totalPrice.subtract(previous));
+        }
     }
 }
@@ -5,20 +5,36 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.List;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
+// Named, so the upgrade script in db/sqlserver and Hibernate refer to the same constraint
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_category_name", columnNames = "name"))
 public class Category {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
     private String name;
 
+    // Optimistic lock version, also part of the HTTP ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set by Hibernate on every insert and update, sent as Last-Modified
+    @UpdateTimestamp
+    private Instant lastModified;
+
     @JsonIgnore
     @OneToMany(mappedBy = "category")
     private List<Product> products;
@@ -5,8 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.sql.Blob;
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -15,16 +18,34 @@ import java.sql.Blob;
 @Entity
 public class Image {
 
+    // Pooled sequence instead of IDENTITY, so Hibernate can batch inserts of several images
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_seq")
+    @SequenceGenerator(name = "image_seq", sequenceName = "image_seq", allocationSize = 50)
     private Long id;
     private String fileName;
     private String fileType;
 
+    // SHA-256 of the content (used as the download ETag) and its size in bytes
+    private String contentHash;
+    private Long fileSize;
+
+    // Content of images stored before ImageStorage existed, null once migrated
     @Lob
     private Blob image;
 
-    private String downloadUrl;
+    // Key of the content in ImageStorage
+    private String storageKey;
+
+    // Optimistic lock version, also part of the HTTP ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set by Hibernate on every insert and update, sent as Last-Modified
+    @UpdateTimestamp
+    private Instant lastModified;
 
     @ManyToOne
     @JoinColumn(name = "product_id")
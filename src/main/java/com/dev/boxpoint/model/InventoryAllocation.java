@@ -0,0 +1,27 @@
+package com.dev.boxpoint.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Units of a product the inventory ledger took out of {@code product.inventory} to hand
+ * out from memory. Ordered units are subtracted when their order items are settled; what
+ * is left is given back to the product on shutdown, or on the next start after a crash.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class InventoryAllocation {
+
+    // No foreign key, deleting a product does not have to wait for its allocation
+    @Id
+    private Long productId;
+
+    @Column(nullable = false)
+    private long units;
+}
@@ -15,7 +15,10 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination of a user's order history, newest first
+        @Index(name = "ix_orders_user_id_order_id", columnList = "user_id, order_id")
+})
 public class Order {
 
     @Id
@@ -11,14 +11,26 @@ import java.math.BigDecimal;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        // Loading the items of a page of orders
+        @Index(name = "ix_order_item_order_id", columnList = "order_id"),
+        @Index(name = "ix_order_item_stock_settlement", columnList = "stock_settlement")
+})
 public class OrderItem {
 
+    // Stock settlement of items whose units came from the inventory ledger
+    public static final long STOCK_PENDING = 0;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private int quantity;
     private BigDecimal price;
 
+    // Null when the stock was taken from the product directly; STOCK_PENDING until the
+    // ledger subtracts the item from its allocation, then the id of that settlement
+    private Long stockSettlement;
+
     @ManyToOne
     @JoinColumn(name = "order_id")
     private Order order;
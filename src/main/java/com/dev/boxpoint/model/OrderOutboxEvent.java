@@ -0,0 +1,44 @@
+package com.dev.boxpoint.model;
+
+import com.dev.boxpoint.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * A status an order is to advance to, written in the same transaction as the change that
+ * calls for it and applied later by the {@code OrderOutboxProcessor}. The row is deleted
+ * once applied, so the table holds only the work still to do.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // No foreign key, deleting an order does not have to wait for its events
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus targetStatus;
+
+    // Set by Hibernate on insert, the processing lag is measured from it
+    @CreationTimestamp
+    private Instant createdAt;
+
+    public OrderOutboxEvent(Long orderId, OrderStatus targetStatus) {
+        this.orderId = orderId;
+        this.targetStatus = targetStatus;
+    }
+}
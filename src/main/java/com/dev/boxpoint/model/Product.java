@@ -4,14 +4,24 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        // Keyset pagination indexes, one per supported sort
+        @Index(name = "ix_product_price_id", columnList = "price, id"),
+        @Index(name = "ix_product_name_id", columnList = "name, id"),
+        @Index(name = "ix_product_brand_id", columnList = "brand, id"),
+        @Index(name = "ix_product_category_id", columnList = "category_id, id")
+})
 public class Product {
 
     @Id
@@ -20,10 +30,20 @@ public class Product {
     private String name;
     private String brand;
     private BigDecimal price;
-    private int Inventory;
+    private int inventory;
     private String description;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    // Optimistic lock version, also part of the HTTP ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set by Hibernate on every insert and update, sent as Last-Modified
+    @UpdateTimestamp
+    private Instant lastModified;
+
+    @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -34,7 +54,7 @@ public class Product {
         this.name = name;
         this.brand = brand;
         this.price = price;
-        Inventory = inventory;
+        this.inventory = inventory;
         this.description = description;
         this.category = category;
     }
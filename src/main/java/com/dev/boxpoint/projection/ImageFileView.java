@@ -0,0 +1,7 @@
+package com.dev.boxpoint.projection;
+
+/**
+ * Everything needed to answer an image download except the binary content itself.
+ */
+public record ImageFileView(Long id, String fileName, String fileType, String contentHash, Long fileSize, String storageKey) {
+}
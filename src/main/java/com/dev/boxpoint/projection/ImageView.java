@@ -0,0 +1,12 @@
+package com.dev.boxpoint.projection;
+
+/**
+ * Image metadata without the binary content, used when listing images of many products at once.
+ */
+public interface ImageView {
+    Long getId();
+
+    String getFileName();
+
+    Long getProductId();
+}
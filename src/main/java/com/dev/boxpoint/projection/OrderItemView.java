@@ -0,0 +1,15 @@
+package com.dev.boxpoint.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * An order item with its product's name and brand, which are null once the product is deleted.
+ */
+public record OrderItemView(
+        Long orderId,
+        Long productId,
+        String productName,
+        String productBrand,
+        int quantity,
+        BigDecimal price) {
+}
@@ -0,0 +1,17 @@
+package com.dev.boxpoint.projection;
+
+import com.dev.boxpoint.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Columns of an order that the order history returns. The user is the one whose history is
+ * read, and the items are loaded separately for the whole page.
+ */
+public record OrderView(
+        Long orderId,
+        LocalDate orderDate,
+        BigDecimal totalAmount,
+        OrderStatus orderStatus) {
+}
@@ -0,0 +1,14 @@
+package com.dev.boxpoint.projection;
+
+import java.time.Instant;
+
+/**
+ * Version columns of a product and its category, enough to answer a conditional GET.
+ */
+public record ProductVersionView(
+        Long id,
+        long version,
+        Instant lastModified,
+        Long categoryVersion,
+        Instant categoryLastModified) {
+}
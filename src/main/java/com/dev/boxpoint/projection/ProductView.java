@@ -0,0 +1,20 @@
+package com.dev.boxpoint.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Columns of a product and its category that the read endpoints return. Selecting into
+ * this record skips entity hydration, the persistence context and dirty checking.
+ */
+public record ProductView(
+        Long id,
+        String name,
+        String brand,
+        BigDecimal price,
+        int inventory,
+        String description,
+        long version,
+        Long categoryId,
+        String categoryName,
+        Long categoryVersion) {
+}
@@ -0,0 +1,122 @@
+package com.dev.boxpoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the changes of many carts with one JDBC batch per statement. Cart item ids are
+ * IDENTITY columns, so items are matched by cart and product instead: changed items are
+ * updated, the ones no row matched are inserted, and removed items are deleted. An item
+ * whose product was deleted meanwhile is not inserted, instead of failing the whole batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CartBatchRepository {
+
+    private static final String UPDATE_CART = "UPDATE cart SET total_amount = ? WHERE id = ?";
+    private static final String DELETE_ITEM = "DELETE FROM cart_item WHERE cart_id = ? AND product_id = ?";
+    private static final String UPDATE_ITEM = "UPDATE cart_item SET quantity = ?, unit_price = ?, total_price = ? "
+            + "WHERE cart_id = ? AND product_id = ?";
+    private static final String INSERT_ITEM = "INSERT INTO cart_item "
+            + "(quantity, unit_price, total_price, cart_id, product_id) SELECT ?, ?, ?, ?, ? "
+            + "WHERE EXISTS (SELECT 1 FROM product WHERE id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // A cart's total and the items changed since it was last written
+    public record CartChanges(Long cartId, BigDecimal totalAmount, List<ItemRow> savedItems, List<Long> removedProductIds) {
+    }
+
+    public record ItemRow(Long cartId, Long productId, int quantity, BigDecimal unitPrice, BigDecimal totalPrice) {
+    }
+
+    // The carts that no longer exist, and by cart id the products whose items were not inserted
+    public record WriteResult(Set<Long> missingCarts, Map<Long, List<Long>> skippedProducts) {
+    }
+
+    /**
+     * Writes all changes. Items of carts that no longer exist, and new items of products that
+     * no longer exist, are skipped and reported in the result.
+     */
+    public WriteResult writeAll(List<CartChanges> carts) {
+        Set<Long> missingCarts = new HashSet<>();
+        Map<Long, List<Long>> skippedProducts = new HashMap<>();
+        if (carts.isEmpty()) {
+            return new WriteResult(missingCarts, skippedProducts);
+        }
+
+        // Totals first, a cart deleted meanwhile (with its user) matches no row
+        int[] updatedCarts = jdbcTemplate.batchUpdate(UPDATE_CART, carts, carts.size(), (ps, cart) -> {
+            ps.setBigDecimal(1, cart.totalAmount());
+            ps.setLong(2, cart.cartId());
+        })[0];
+
+        List<ItemRow> savedItems = new ArrayList<>();
+        List<ItemRow> removedItems = new ArrayList<>();
+        for (int i = 0; i < carts.size(); i++) {
+            CartChanges cart = carts.get(i);
+            if (updatedCarts[i] == 0) {
+                missingCarts.add(cart.cartId());
+                continue;
+            }
+            savedItems.addAll(cart.savedItems());
+            cart.removedProductIds().forEach(productId ->
+                    removedItems.add(new ItemRow(cart.cartId(), productId, 0, null, null)));
+        }
+
+        if (!removedItems.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM, removedItems, removedItems.size(), (ps, item) -> {
+                ps.setLong(1, item.cartId());
+                ps.setLong(2, item.productId());
+            });
+        }
+
+        if (!savedItems.isEmpty()) {
+            // Update the items that are already stored, insert the rest
+            int[] updatedItems = jdbcTemplate.batchUpdate(UPDATE_ITEM, savedItems, savedItems.size(), (ps, item) -> {
+                ps.setInt(1, item.quantity());
+                ps.setBigDecimal(2, item.unitPrice());
+                ps.setBigDecimal(3, item.totalPrice());
+                ps.setLong(4, item.cartId());
+                ps.setLong(5, item.productId());
+            })[0];
+
+            List<ItemRow> newItems = new ArrayList<>();
+            for (int i = 0; i < savedItems.size(); i++) {
+                if (updatedItems[i] == 0) {
+                    newItems.add(savedItems.get(i));
+                }
+            }
+
+            if (!newItems.isEmpty()) {
+                int[] insertedItems = jdbcTemplate.batchUpdate(INSERT_ITEM, newItems, newItems.size(), (ps, item) -> {
+                    ps.setInt(1, item.quantity());
+                    ps.setBigDecimal(2, item.unitPrice());
+                    ps.setBigDecimal(3, item.totalPrice());
+                    ps.setLong(4, item.cartId());
+                    ps.setLong(5, item.productId());
+                    ps.setLong(6, item.productId());
+                })[0];
+
+                // A product deleted meanwhile matched no row, its item was not inserted
+                for (int i = 0; i < newItems.size(); i++) {
+                    if (insertedItems[i] == 0) {
+                        ItemRow item = newItems.get(i);
+                        skippedProducts.computeIfAbsent(item.cartId(), cartId -> new ArrayList<>()).add(item.productId());
+                    }
+                }
+            }
+        }
+
+        return new WriteResult(missingCarts, skippedProducts);
+    }
+}
@@ -2,9 +2,20 @@ package com.dev.boxpoint.repository;
 
 import com.dev.boxpoint.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
+import java.util.Collection;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    List<CartItem> findByProductId(Long productId);
+    // Totals of the carts holding any of the products, as if those items were already gone
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalAmount = (SELECT COALESCE(SUM(ci.totalPrice), 0) FROM CartItem ci " +
+            "WHERE ci.cart = c AND ci.product.id NOT IN :productIds) " +
+            "WHERE c.id IN (SELECT ci.cart.id FROM CartItem ci WHERE ci.product.id IN :productIds)")
+    int updateCartTotalsWithoutProducts(Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.id IN :productIds")
+    int deleteByProductIdIn(Collection<Long> productIds);
 }
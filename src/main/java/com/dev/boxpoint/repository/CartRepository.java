@@ -0,0 +1,13 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.model.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CartRepository extends JpaRepository<Cart, Long> {
+    // The cart with its items in one query, products stay references
+    @EntityGraph(attributePaths = "items")
+    Optional<Cart> findByUserId(Long userId);
+}
@@ -0,0 +1,69 @@
+package com.dev.boxpoint.repository;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Reads image content straight from the JDBC binary stream, so a download never holds
+ * the whole image in memory. JPA would materialize the Blob, which is why this uses JDBC.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ImageContentRepository {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long copyContent(Long imageId, long offset, long length, OutputStream out) {
+        return readContent(imageId, in -> {
+            // An image row without content has nothing to copy
+            if (in == null) {
+                return 0L;
+            }
+
+            try {
+                // Jump to the first requested byte, then copy one chunk at a time
+                in.skipNBytes(offset);
+                byte[] buffer = new byte[CHUNK_SIZE];
+                long remaining = length;
+                long copied = 0;
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read == -1) {
+                        break;
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                    copied += read;
+                }
+                return copied;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public <T> T readContent(Long imageId, Function<InputStream, T> reader) {
+        return jdbcTemplate.query("SELECT image FROM image WHERE id = ?", rs -> {
+            if (!rs.next()) {
+                throw new EntityNotFoundException("Image not found!");
+            }
+
+            // The stream is only valid while the result set is open
+            try (InputStream in = rs.getBinaryStream(1)) {
+                return reader.apply(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, imageId);
+    }
+}
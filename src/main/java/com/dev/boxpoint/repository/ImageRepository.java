@@ -1,10 +1,42 @@
 package com.dev.boxpoint.repository;
 
 import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.projection.ImageFileView;
+import com.dev.boxpoint.projection.ImageView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
-    List<Image> findByProductId(Long id);
+    @Query("SELECT i.id AS id, i.fileName AS fileName, i.product.id AS productId " +
+            "FROM Image i WHERE i.product.id IN :productIds ORDER BY i.id")
+    List<ImageView> findViewsByProductIdIn(Collection<Long> productIds);
+
+    Optional<ImageFileView> findFileById(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Image i SET i.contentHash = :contentHash, i.fileSize = :fileSize WHERE i.id = :id")
+    int updateContentInfo(Long id, String contentHash, Long fileSize);
+
+    @Query("SELECT i.storageKey FROM Image i WHERE i.product.id IN :productIds AND i.storageKey IS NOT NULL")
+    List<String> findStorageKeysByProductIdIn(Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM Image i WHERE i.product.id IN :productIds")
+    int deleteByProductIdIn(Collection<Long> productIds);
+
+    @Query("SELECT i.id FROM Image i WHERE i.storageKey IS NULL AND i.image IS NOT NULL ORDER BY i.id")
+    List<Long> findIdsStoredInDatabase(Limit limit);
+
+    @Modifying
+    @Query("UPDATE Image i SET i.storageKey = :storageKey, i.contentHash = :contentHash, i.fileSize = :fileSize, " +
+            "i.image = NULL WHERE i.id = :id AND i.storageKey IS NULL")
+    int moveToStorage(Long id, String storageKey, String contentHash, Long fileSize);
 }
@@ -0,0 +1,121 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves units between {@code product.inventory} and the inventory ledger's allocations, and
+ * settles the order items the ledger handed out. Every method must run in a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryLedgerRepository {
+
+    private static final String TAKE_FROM_PRODUCT = "UPDATE product SET inventory = inventory - ?, "
+            + "version = version + 1, last_modified = ? WHERE id = ? AND inventory >= ?";
+    private static final String RETURN_TO_PRODUCT = "UPDATE product SET inventory = inventory + ?, "
+            + "version = version + 1, last_modified = ? WHERE id = ?";
+    private static final String ADD_TO_ALLOCATION = "UPDATE inventory_allocation SET units = units + ? WHERE product_id = ?";
+    private static final String INSERT_ALLOCATION = "INSERT INTO inventory_allocation (product_id, units) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int findInventory(Long productId) {
+        return jdbcTemplate.query("SELECT inventory FROM product WHERE id = ?",
+                rs -> rs.next() ? rs.getInt(1) : 0, productId);
+    }
+
+    /**
+     * Moves the units from the product to its allocation, if the product still has them.
+     */
+    public boolean allocate(Long productId, int units) {
+        if (jdbcTemplate.update(TAKE_FROM_PRODUCT, units, Timestamp.from(Instant.now()), productId, units) == 0) {
+            return false;
+        }
+        if (jdbcTemplate.update(ADD_TO_ALLOCATION, units, productId) == 0) {
+            jdbcTemplate.update(INSERT_ALLOCATION, productId, units);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the units of every allocation back to its product, with one batch per table.
+     */
+    public void release(Map<Long, Long> units) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(units.entrySet());
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+
+        jdbcTemplate.batchUpdate(RETURN_TO_PRODUCT, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, entry.getKey());
+        });
+        jdbcTemplate.batchUpdate(ADD_TO_ALLOCATION, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, -entry.getValue());
+            ps.setLong(2, entry.getKey());
+        });
+    }
+
+    /**
+     * Takes units out of the product's allocation without giving them back to the product,
+     * for units replaced by a new inventory count.
+     */
+    public void discard(Long productId, long units) {
+        if (units > 0) {
+            jdbcTemplate.update(ADD_TO_ALLOCATION, -units, productId);
+        }
+    }
+
+    /**
+     * Subtracts every pending order item from its product's allocation and returns the
+     * units settled by product.
+     */
+    public Map<Long, Long> settlePendingItems() {
+        // Claim the pending items under a new settlement id first, then sum exactly those:
+        // items committed meanwhile are either claimed and summed, or left for the next time
+        long settlement = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(stock_settlement), 0) + 1 FROM order_item", Long.class);
+        int claimed = jdbcTemplate.update("UPDATE order_item SET stock_settlement = ? WHERE stock_settlement = ?",
+                settlement, OrderItem.STOCK_PENDING);
+
+        Map<Long, Long> settled = new HashMap<>();
+        if (claimed == 0) {
+            return settled;
+        }
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) FROM order_item "
+                        + "WHERE stock_settlement = ? AND product_id IS NOT NULL GROUP BY product_id",
+                rs -> {
+                    settled.put(rs.getLong(1), rs.getLong(2));
+                }, settlement);
+
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(settled.entrySet());
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_TO_ALLOCATION, entries, entries.size(), (ps, entry) -> {
+                ps.setLong(1, -entry.getValue());
+                ps.setLong(2, entry.getKey());
+            });
+        }
+        return settled;
+    }
+
+    public Map<Long, Long> findAllocations() {
+        Map<Long, Long> allocations = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, units FROM inventory_allocation WHERE units > 0",
+                rs -> {
+                    allocations.put(rs.getLong(1), rs.getLong(2));
+                });
+        return allocations;
+    }
+}
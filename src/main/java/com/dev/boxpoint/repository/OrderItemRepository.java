@@ -1,10 +1,22 @@
 package com.dev.boxpoint.repository;
 
 import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.projection.OrderItemView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-    List<OrderItem> findByProductId(Long productId);
+    // The items of a page of orders with their products' names, in one query
+    @Query("SELECT new com.dev.boxpoint.projection.OrderItemView(oi.order.orderId, p.id, p.name, p.brand, oi.quantity, oi.price) " +
+            "FROM OrderItem oi LEFT JOIN oi.product p WHERE oi.order.orderId IN :orderIds ORDER BY oi.id")
+    List<OrderItemView> findViewsByOrderIdIn(Collection<Long> orderIds);
+
+    // Order items keep their quantity and price when their product is deleted
+    @Modifying
+    @Query("UPDATE OrderItem oi SET oi.product = NULL WHERE oi.product.id IN :productIds")
+    int detachProducts(Collection<Long> productIds);
 }
@@ -0,0 +1,108 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.enums.OrderStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes batches of events off the order outbox and applies them to the orders. Claimed
+ * rows are deleted in the caller's transaction and locked until it ends; other workers, on
+ * this or another instance, skip them instead of waiting, and get them back if it rolls
+ * back. Every method must run in a transaction.
+ */
+@Repository
+public class OrderOutboxBatchRepository {
+
+    // SQL Server deletes and returns the oldest unlocked rows in one statement
+    private static final String CLAIM_SQL_SERVER = "WITH batch AS ("
+            + "SELECT TOP (?) id, order_id, target_status, created_at FROM order_outbox WITH (ROWLOCK, UPDLOCK, READPAST) "
+            + "ORDER BY id) "
+            + "DELETE FROM batch OUTPUT deleted.id, deleted.order_id, deleted.target_status, deleted.created_at";
+    // Other databases, such as the embedded H2 of the benchmarks, lock the rows and delete them by id
+    private static final String CLAIM = "SELECT id, order_id, target_status, created_at FROM order_outbox "
+            + "ORDER BY id FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED";
+    private static final String DELETE = "DELETE FROM order_outbox WHERE id = ?";
+
+    private static final RowMapper<ClaimedEvent> CLAIMED_EVENT = (rs, rowNum) -> new ClaimedEvent(
+            rs.getLong("id"),
+            rs.getLong("order_id"),
+            OrderStatus.valueOf(rs.getString("target_status")),
+            rs.getTimestamp("created_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean sqlServer;
+
+    public record ClaimedEvent(Long id, Long orderId, OrderStatus targetStatus, Instant createdAt) {
+    }
+
+    public OrderOutboxBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlServer = "Microsoft SQL Server".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Removes up to {@code limit} of the oldest events no other transaction holds and
+     * returns them.
+     */
+    public List<ClaimedEvent> claim(int limit) {
+        if (sqlServer) {
+            return jdbcTemplate.query(CLAIM_SQL_SERVER, CLAIMED_EVENT, limit);
+        }
+
+        List<ClaimedEvent> events = jdbcTemplate.query(CLAIM, CLAIMED_EVENT, limit);
+        if (!events.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE, events, events.size(), (ps, event) -> ps.setLong(1, event.id()));
+        }
+        return events;
+    }
+
+    /**
+     * Moves every event's order to its target status if the order is in a status it can
+     * advance from, and returns the events that changed an order. Applying an event again
+     * changes nothing.
+     */
+    public List<ClaimedEvent> advance(List<ClaimedEvent> events) {
+        Map<OrderStatus, List<ClaimedEvent>> byTarget = new EnumMap<>(OrderStatus.class);
+        events.forEach(event -> byTarget.computeIfAbsent(event.targetStatus(), status -> new ArrayList<>()).add(event));
+
+        // One batch per target status; rows are updated in order id order, so workers never
+        // wait for each other's locks
+        List<ClaimedEvent> advanced = new ArrayList<>();
+        for (Map.Entry<OrderStatus, List<ClaimedEvent>> group : byTarget.entrySet()) {
+            List<OrderStatus> from = new ArrayList<>(group.getKey().advancesFrom());
+            if (from.isEmpty()) {
+                continue;
+            }
+            List<ClaimedEvent> batch = new ArrayList<>(group.getValue());
+            batch.sort(Comparator.comparing(ClaimedEvent::orderId));
+
+            String sql = "UPDATE orders SET order_status = ? WHERE order_id = ? AND order_status IN ("
+                    + String.join(", ", Collections.nCopies(from.size(), "?")) + ")";
+            int[] updated = jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, event) -> {
+                ps.setString(1, event.targetStatus().name());
+                ps.setLong(2, event.orderId());
+                for (int i = 0; i < from.size(); i++) {
+                    ps.setString(3 + i, from.get(i).name());
+                }
+            })[0];
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (updated[i] != 0) {
+                    advanced.add(batch.get(i));
+                }
+            }
+        }
+        return advanced;
+    }
+}
@@ -0,0 +1,7 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.model.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+}
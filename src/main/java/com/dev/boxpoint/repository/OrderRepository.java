@@ -0,0 +1,14 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.projection.OrderView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderRepository extends JpaRepository<Order, Long> {
+    // One page of a user's orders as projections, continued from the keyset position
+    Window<OrderView> findViewsByUserId(Long userId, ScrollPosition position, Limit limit, Sort sort);
+}
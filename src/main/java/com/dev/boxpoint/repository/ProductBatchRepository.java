@@ -0,0 +1,44 @@
+package com.dev.boxpoint.repository;
+
+import com.dev.boxpoint.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inserts products with one JDBC batch. Product ids are IDENTITY columns, which stop
+ * Hibernate from batching inserts, so bulk writes go through JDBC instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBatchRepository {
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product "
+            + "(name, brand, price, inventory, description, category_id, version, last_modified) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Product> products) {
+        Timestamp now = Timestamp.from(Instant.now());
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, products, products.size(), (ps, product) -> {
+            ps.setString(1, product.getName());
+            ps.setString(2, product.getBrand());
+            ps.setBigDecimal(3, product.getPrice());
+            ps.setInt(4, product.getInventory());
+            ps.setString(5, product.getDescription());
+            if (product.getCategory() != null) {
+                ps.setLong(6, product.getCategory().getId());
+            } else {
+                ps.setNull(6, Types.BIGINT);
+            }
+            ps.setTimestamp(7, now);
+        });
+    }
+}
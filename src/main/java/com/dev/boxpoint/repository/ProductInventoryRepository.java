@@ -0,0 +1,55 @@
+package com.dev.boxpoint.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Takes stock with conditional updates, so concurrent orders never sell more than is in
+ * stock: the database checks and decrements each row in one statement, under its row lock,
+ * instead of the application reading the inventory and writing it back.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductInventoryRepository {
+
+    // The version moves too, so HTTP validators and product updates see the new inventory
+    private static final String RESERVE = "UPDATE product SET inventory = inventory - ?, "
+            + "version = version + 1, last_modified = ? WHERE id = ? AND inventory >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Decrements the inventory of every product by its quantity with one JDBC batch and
+     * returns the products that did not have enough stock. Must run in a transaction that
+     * is rolled back when any product is returned.
+     */
+    public List<Long> reserve(SortedMap<Long, Integer> quantities) {
+        // Rows are updated in product id order, so two orders never wait for each other's locks
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        Timestamp now = Timestamp.from(Instant.now());
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+            ps.setInt(4, line.getValue());
+        })[0];
+
+        // No row matched: not enough stock, or the product is gone
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(lines.get(i).getKey());
+            }
+        }
+        return missing;
+    }
+}
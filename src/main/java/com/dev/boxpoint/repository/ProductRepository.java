@@ -1,22 +1,77 @@
 package com.dev.boxpoint.repository;
 
 import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ProductVersionView;
+import com.dev.boxpoint.projection.ProductView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategoryNameAndBrand(String category, String brand);
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findAllBy(ScrollPosition position, Limit limit, Sort sort);
 
-    List<Product> findByCategoryName(String category);
+    // Read endpoints select only the columns of ProductView, without hydrating entities
+    Window<ProductView> findViewsBy(ScrollPosition position, Limit limit, Sort sort);
 
-    List<Product> findByNameAndBrand(String brand, String name);
+    Window<ProductView> findByCategoryNameAndBrand(String category, String brand, ScrollPosition position, Limit limit, Sort sort);
 
-    List<Product> findByBrand(String brand);
+    Window<ProductView> findByCategoryName(String category, ScrollPosition position, Limit limit, Sort sort);
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Product> findByName(String name);
+    Window<ProductView> findByNameAndBrand(String name, String brand, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<ProductView> findByBrand(String brand, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<ProductView> findByNameContainingIgnoreCase(String name, ScrollPosition position, Limit limit, Sort sort);
+
+    // Where the non-null sort values start, for pages that go on after the null ones
+    @Query("select min(p.price) from Product p")
+    BigDecimal findLowestPrice();
+
+    @Query("select min(p.name) from Product p")
+    String findLowestName();
+
+    Optional<ProductView> findViewById(Long id);
+
+    List<ProductView> findViewsByIdIn(Collection<Long> ids);
+
+    // Whole catalog in id order, read row by row from one cursor for exports
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ProductView> streamViewsByOrderByIdAsc();
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByNameIn(Collection<String> names);
 
     boolean existsByNameAndBrand(String name, String brand);
+
+    @Query("select new com.dev.boxpoint.projection.ProductVersionView("
+            + "p.id, p.version, p.lastModified, c.version, c.lastModified) "
+            + "from Product p left join p.category c where p.id = :productId")
+    Optional<ProductVersionView> findVersionById(Long productId);
+
+    @Modifying
+    @Query("delete from Product p where p.id in :productIds")
+    int deleteByIdIn(Collection<Long> productIds);
+
+    // Images are part of the product representation, so changing them is a change of the product
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.version = p.version + 1, p.lastModified = :now where p.id = :productId")
+    int touch(Long productId, Instant now);
 }
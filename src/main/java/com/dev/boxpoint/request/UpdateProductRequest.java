@@ -14,4 +14,6 @@ public class UpdateProductRequest {
     private int Inventory;
     private String description;
     private Category category;
+    // Version the client read, the update is rejected if the product changed since
+    private Long version;
 }
@@ -0,0 +1,118 @@
+package com.dev.boxpoint.service.cart;
+
+import com.dev.boxpoint.dtos.CartDto;
+import com.dev.boxpoint.dtos.CartItemDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.mapper.CartMapper;
+import com.dev.boxpoint.model.Cart;
+import com.dev.boxpoint.model.CartItem;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.service.product.IProductService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class CartService implements ICartService {
+
+    private final CartStore cartStore;
+    private final IProductService productService;
+    private final CartMapper cartMapper;
+
+    // A cart converted under its lock, with the items' products still to be added
+    private record CartSnapshot(CartDto cart, Map<Long, CartItemDto> itemsByProduct) {
+    }
+
+    @Override
+    public CartDto getCart(Long userId) {
+        // Read the cart from memory, loading it once
+        return convertToDto(cartStore.read(userId, this::snapshot));
+    }
+
+    @Override
+    public CartDto addItem(Long userId, Long productId, int quantity) {
+        checkQuantity(quantity);
+
+        // The price comes from the cached product, not from a query per item
+        ProductDto product = productService.getProductDtoById(productId);
+
+        return convertToDto(cartStore.write(userId, productId, cart -> {
+            cart.findItem(productId).ifPresentOrElse(item -> {
+                // The product is already in the cart, add to its quantity
+                item.setQuantity(item.getQuantity() + quantity);
+                item.setTotalPrice();
+            }, () -> {
+                // Create a new item for the product
+                CartItem item = new CartItem();
+                item.setProduct(productReference(productId));
+                item.setQuantity(quantity);
+                item.setUnitPrice(product.getPrice());
+                item.setTotalPrice();
+                cart.addItem(item);
+            });
+            return snapshot(cart);
+        }));
+    }
+
+    @Override
+    public CartDto updateItemQuantity(Long userId, Long productId, int quantity) {
+        checkQuantity(quantity);
+
+        return convertToDto(cartStore.write(userId, productId, cart -> {
+            // Only the item's total changes, the cart's total moves by the difference
+            CartItem item = findItem(cart, productId);
+            item.setQuantity(quantity);
+            item.setTotalPrice();
+            return snapshot(cart);
+        }));
+    }
+
+    @Override
+    public CartDto removeItem(Long userId, Long productId) {
+        return convertToDto(cartStore.write(userId, productId, cart -> {
+            cart.removeItem(findItem(cart, productId));
+            return snapshot(cart);
+        }));
+    }
+
+    private static CartItem findItem(Cart cart, Long productId) {
+        return cart.findItem(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Item not found in cart!"));
+    }
+
+    private static void checkQuantity(int quantity) {
+        if (quantity < 1) {
+            throw new BadRequestException("Quantity must be at least 1!");
+        }
+    }
+
+    private static Product productReference(Long productId) {
+        // Items only store the product's id
+        Product product = new Product();
+        product.setId(productId);
+        return product;
+    }
+
+    private CartSnapshot snapshot(Cart cart) {
+        // Converted while the cart is locked, so in memory only and without the products
+        Map<Long, CartItemDto> itemsByProduct = new HashMap<>();
+        cart.getItems().forEach(item -> itemsByProduct.put(item.getProduct().getId(), cartMapper.toDto(item)));
+        return new CartSnapshot(cartMapper.toDto(cart), itemsByProduct);
+    }
+
+    private CartDto convertToDto(CartSnapshot snapshot) {
+        // Products come from the product cache, after the cart's lock is released
+        snapshot.itemsByProduct().forEach((productId, itemDto) ->
+                itemDto.setProduct(productService.getProductDtoById(productId)));
+
+        CartDto cartDto = snapshot.cart();
+        cartDto.setItems(new HashSet<>(snapshot.itemsByProduct().values()));
+        return cartDto;
+    }
+}
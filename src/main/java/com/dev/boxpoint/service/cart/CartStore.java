@@ -0,0 +1,419 @@
+package com.dev.boxpoint.service.cart;
+
+import com.dev.boxpoint.model.Cart;
+import com.dev.boxpoint.model.CartItem;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CartBatchRepository;
+import com.dev.boxpoint.repository.CartBatchRepository.CartChanges;
+import com.dev.boxpoint.repository.CartBatchRepository.ItemRow;
+import com.dev.boxpoint.repository.CartBatchRepository.WriteResult;
+import com.dev.boxpoint.repository.CartRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Keeps the carts in use in memory, by user id, and writes their changes to the database
+ * behind the requests. Changed carts are written in batches on an interval, and right away
+ * when they are evicted; until then a cart is read from memory, evicted or not.
+ * Changes that were not written yet are lost if the application stops abruptly.
+ * <p>
+ * The memory of one instance is the cart's source of truth, so this only works on a single
+ * node, or behind a load balancer with sticky sessions that sends a user to the same node.
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartBatchRepository cartBatchRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private static final int LOCK_STRIPES = 256;
+
+    private final int batchSize;
+
+    // Carts in memory, bounded; carts with unwritten changes are also kept in dirty until written
+    private final Cache<Long, CartEntry> carts;
+    private final Map<Long, CartEntry> dirty = new ConcurrentHashMap<>();
+
+    // A user's cart is loaded, used and written under the user's lock. These are not monitors,
+    // so a virtual thread that waits or reads the database while holding one is not pinned
+    private final ReentrantLock[] userLocks = new ReentrantLock[LOCK_STRIPES];
+
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // A cart and the products whose items changed since it was last written
+    private static final class CartEntry {
+        final Long userId;
+        final Cart cart;
+        final Set<Long> changedProducts = new HashSet<>();
+
+        CartEntry(Long userId, Cart cart) {
+            this.userId = userId;
+            this.cart = cart;
+        }
+    }
+
+    public CartStore(
+            CartRepository cartRepository,
+            CartBatchRepository cartBatchRepository,
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${carts.store.max-size:10000}") long maxSize,
+            @Value("${carts.store.expire-after-access:30m}") Duration expireAfterAccess,
+            @Value("${carts.store.flush-interval:2s}") Duration flushInterval,
+            @Value("${carts.store.batch-size:500}") int batchSize) {
+        this.cartRepository = cartRepository;
+        this.cartBatchRepository = cartBatchRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .removalListener((Long userId, CartEntry entry, RemovalCause cause) -> {
+                    // An evicted cart with unwritten changes is written now instead of on the next interval
+                    if (cause.wasEvicted() && dirty.containsKey(userId)) {
+                        requestFlush();
+                    }
+                })
+                .build();
+
+        // One writer thread, so batches never overlap
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cart-flush").daemon().factory());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the reader on the user's cart, loading or creating the cart first.
+     */
+    public <T> T read(Long userId, Function<Cart, T> reader) {
+        return access(userId, entry -> reader.apply(entry.cart));
+    }
+
+    /**
+     * Runs the writer on the user's cart and writes the product's item later.
+     */
+    public <T> T write(Long userId, Long productId, Function<Cart, T> writer) {
+        return access(userId, entry -> {
+            T result = writer.apply(entry.cart);
+            entry.changedProducts.add(productId);
+            dirty.put(userId, entry);
+            return result;
+        });
+    }
+
+    /**
+     * Takes every item out of the user's cart, for an order being placed. Checkouts of the
+     * same cart are serialised this way: a second one finds the cart empty.
+     */
+    public List<CartItem> takeItems(Long userId) {
+        return access(userId, entry -> {
+            List<CartItem> items = List.copyOf(entry.cart.getItems());
+            for (CartItem item : items) {
+                entry.cart.removeItem(item);
+                entry.changedProducts.add(item.getProduct().getId());
+            }
+            if (!items.isEmpty()) {
+                dirty.put(userId, entry);
+            }
+            return items;
+        });
+    }
+
+    /**
+     * Puts items taken for an order that failed back into the user's cart. Items added for
+     * the same products meanwhile keep their price and get the quantity added.
+     */
+    public void returnItems(Long userId, Collection<CartItem> items) {
+        access(userId, entry -> {
+            for (CartItem taken : items) {
+                Long productId = taken.getProduct().getId();
+                entry.cart.findItem(productId).ifPresentOrElse(item -> {
+                    item.setQuantity(item.getQuantity() + taken.getQuantity());
+                    item.setTotalPrice();
+                }, () -> entry.cart.addItem(taken));
+                entry.changedProducts.add(productId);
+            }
+            dirty.put(userId, entry);
+            return null;
+        });
+    }
+
+    private <T> T access(Long userId, Function<CartEntry, T> action) {
+        ReentrantLock lock = lockOf(userId);
+        lock.lock();
+        try {
+            // Loading happens outside the cache's own locks, which would block other users' carts.
+            // If the cart is evicted meanwhile, the next access waits for this lock and finds
+            // the cart's unwritten changes in dirty
+            CartEntry entry = carts.getIfPresent(userId);
+            if (entry == null) {
+                entry = load(userId);
+                carts.put(userId, entry);
+            }
+            return action.apply(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockOf(Long userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), userLocks.length)];
+    }
+
+    private CartEntry load(Long userId) {
+        // An evicted cart that was not written yet is newer than its row
+        CartEntry pending = dirty.get(userId);
+        if (pending != null) {
+            return pending;
+        }
+
+        // Load the stored cart with its items, or create the user's first cart
+        Cart cart = cartRepository.findByUserId(userId).orElseGet(() -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found!"));
+            Cart newCart = new Cart();
+            newCart.setUser(user);
+            newCart.setTotalAmount(BigDecimal.ZERO);
+            return cartRepository.save(newCart);
+        });
+        return new CartEntry(userId, cart);
+    }
+
+    /**
+     * Removes the products' items from the carts in memory, for products being deleted.
+     */
+    public void removeProducts(Collection<Long> productIds) {
+        Set<CartEntry> entries = new HashSet<>(carts.asMap().values());
+        entries.addAll(dirty.values());
+
+        for (CartEntry entry : entries) {
+            ReentrantLock lock = lockOf(entry.userId);
+            lock.lock();
+            try {
+                for (Long productId : productIds) {
+                    entry.cart.findItem(productId).ifPresent(item -> {
+                        entry.cart.removeItem(item);
+                        entry.changedProducts.add(productId);
+                        dirty.put(entry.userId, entry);
+                    });
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Forgets the user's cart without writing it, for users being deleted.
+     */
+    public void discard(Long userId) {
+        ReentrantLock lock = lockOf(userId);
+        lock.lock();
+        try {
+            carts.invalidate(userId);
+            dirty.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every cart with unwritten changes, one transaction per batch of carts. When the
+     * database cannot be reached, the changes stay unwritten for the next flush. When a batch
+     * fails otherwise, its carts are written one transaction each, and only the carts that
+     * still fail lose their unwritten changes.
+     */
+    public synchronized void flush() {
+        List<CartEntry> entries = List.copyOf(dirty.values());
+
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<CartEntry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            List<CartChanges> changes = batch.stream().map(this::takeChanges).toList();
+
+            try {
+                WriteResult result = transactionTemplate.execute(status -> cartBatchRepository.writeAll(changes));
+                batch.forEach(entry -> written(entry, result));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    // The other batches would fail the same way, all of them are retried on the next flush
+                    log.warn("Could not write a batch of {} carts, retrying on the next flush", batch.size(), e);
+                    for (int i = 0; i < batch.size(); i++) {
+                        restoreChanges(batch.get(i), changes.get(i));
+                    }
+                    return;
+                }
+
+                // One bad cart rolls back the whole batch, so find it by writing the carts one by one
+                log.warn("Could not write a batch of {} carts, writing them one at a time", batch.size(), e);
+                for (int i = 0; i < batch.size(); i++) {
+                    writeAlone(batch.get(i), changes.get(i));
+                }
+            }
+        }
+    }
+
+    private void writeAlone(CartEntry entry, CartChanges changes) {
+        try {
+            WriteResult result = transactionTemplate.execute(status -> cartBatchRepository.writeAll(List.of(changes)));
+            written(entry, result);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                log.warn("Could not write the cart of user {}, retrying on the next flush", entry.userId, e);
+                restoreChanges(entry, changes);
+                return;
+            }
+
+            // The cart is loaded again from what is stored
+            log.warn("Could not write the cart of user {}, its unwritten changes are dropped", entry.userId, e);
+            forget(entry);
+        }
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        // The database could not be reached or gave up on the statement, the same write can succeed later
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void written(CartEntry entry, WriteResult result) {
+        // Carts deleted meanwhile are not kept
+        if (result.missingCarts().contains(entry.cart.getId())) {
+            forget(entry);
+        } else {
+            markWritten(entry, result.skippedProducts().getOrDefault(entry.cart.getId(), List.of()));
+        }
+    }
+
+    private CartChanges takeChanges(CartEntry entry) {
+        ReentrantLock lock = lockOf(entry.userId);
+        lock.lock();
+        try {
+            // Items still in the cart are saved, the others were removed
+            List<ItemRow> savedItems = new ArrayList<>();
+            List<Long> removedProductIds = new ArrayList<>();
+            for (Long productId : entry.changedProducts) {
+                entry.cart.findItem(productId).ifPresentOrElse(
+                        item -> savedItems.add(itemRow(entry.cart, item)),
+                        () -> removedProductIds.add(productId));
+            }
+            entry.changedProducts.clear();
+
+            return new CartChanges(entry.cart.getId(), entry.cart.getTotalAmount(), savedItems, removedProductIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ItemRow itemRow(Cart cart, CartItem item) {
+        return new ItemRow(cart.getId(), item.getProduct().getId(),
+                item.getQuantity(), item.getUnitPrice(), item.getTotalPrice());
+    }
+
+    private void markWritten(CartEntry entry, List<Long> skippedProducts) {
+        ReentrantLock lock = lockOf(entry.userId);
+        lock.lock();
+        try {
+            // Items of products deleted meanwhile were not stored; drop them, the next flush writes the total without them
+            for (Long productId : skippedProducts) {
+                entry.cart.findItem(productId).ifPresent(item -> {
+                    entry.cart.removeItem(item);
+                    entry.changedProducts.add(productId);
+                });
+            }
+
+            // Changed again while it was written, the next flush writes it
+            if (entry.changedProducts.isEmpty()) {
+                dirty.remove(entry.userId, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void restoreChanges(CartEntry entry, CartChanges changes) {
+        ReentrantLock lock = lockOf(entry.userId);
+        lock.lock();
+        try {
+            // The products are written again from the cart as it is then, with any newer changes
+            changes.savedItems().forEach(item -> entry.changedProducts.add(item.productId()));
+            entry.changedProducts.addAll(changes.removedProductIds());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forget(CartEntry entry) {
+        ReentrantLock lock = lockOf(entry.userId);
+        lock.lock();
+        try {
+            dirty.remove(entry.userId, entry);
+            carts.asMap().remove(entry.userId, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requestFlush() {
+        // Many evictions at once need only one extra flush
+        if (flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Keep the schedule running
+            log.warn("Cart flush failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Write what is left before the application stops
+        flusher.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,15 @@
+package com.dev.boxpoint.service.cart;
+
+import com.dev.boxpoint.dtos.CartDto;
+
+public interface ICartService {
+
+    CartDto getCart(Long userId);
+
+    CartDto addItem(Long userId, Long productId, int quantity);
+
+    CartDto updateItemQuantity(Long userId, Long productId, int quantity);
+
+    CartDto removeItem(Long userId, Long productId);
+
+}
@@ -1,20 +1,44 @@
 package com.dev.boxpoint.service.category;
 
+import com.dev.boxpoint.config.CacheConfig;
+import com.dev.boxpoint.dtos.ResourceVersionDto;
+import com.dev.boxpoint.exceptions.BadRequestException;
 import com.dev.boxpoint.model.Category;
 import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.service.search.ProductSearchIndex;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+
+    // Lower-cased category name -> category (id and name only), matching the case-insensitive collation
+    private final Map<String, Category> categoriesByName = new ConcurrentHashMap<>();
+    // Category names that are being created right now, so concurrent writers wait for one insert
+    private final Map<String, CompletableFuture<Category>> pendingCategories = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCategoryNames() {
+        // Warm the name map once, later changes go through this service
+        categoryRepository.findAll().forEach(this::remember);
+    }
 
     @Override
     public Category addCategory(Category category) {
@@ -23,19 +47,89 @@ public class CategoryService implements ICategoryService {
                 .filter(c -> !categoryRepository.existsByName(c.getName()))
                 // Save the category if it's not already exist
                 .map(categoryRepository::save)
+                // Remember the new category name
+                .map(this::remember)
                 // If the category already exist, throw exception
                 .orElseThrow(() -> new EntityExistsException(category.getName() + " already exists!"));
     }
 
     @Override
+    public Category resolveCategory(String name) {
+        if (name == null || name.isBlank()) {
+            throw new BadRequestException("Category name is required!");
+        }
+
+        // Known category: answer from memory without a query
+        String key = key(name);
+        Category known = categoriesByName.get(key);
+        if (known != null) {
+            return copy(known);
+        }
+
+        // Unknown category: only the first writer for this name looks it up or inserts it
+        CompletableFuture<Category> pending = new CompletableFuture<>();
+        CompletableFuture<Category> inFlight = pendingCategories.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            return copy(inFlight.join());
+        }
+
+        try {
+            Category category = Optional.ofNullable(categoryRepository.findByName(name))
+                    .orElseGet(() -> insertCategory(name));
+            remember(category);
+            pending.complete(category);
+            return copy(category);
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingCategories.remove(key, pending);
+        }
+    }
+
+    private Category insertCategory(String name) {
+        try {
+            return categoryRepository.save(new Category(name));
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted the same name first, use its row
+            return Optional.ofNullable(categoryRepository.findByName(name)).orElseThrow(() -> e);
+        }
+    }
+
+    private Category remember(Category category) {
+        categoriesByName.put(key(category.getName()), copy(category));
+        return category;
+    }
+
+    private static Category copy(Category category) {
+        // Hand out a fresh detached instance, so the shared one is never attached or changed
+        Category copy = new Category(category.getName());
+        copy.setId(category.getId());
+        copy.setVersion(category.getVersion());
+        copy.setLastModified(category.getLastModified());
+        return copy;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    // Cached products embed their category, so a rename invalidates the whole product cache
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
     public Category updateCategory(Category category, Long categoryId) {
         // Make sure the updated category is existed
         return Optional.ofNullable(findCategoryById(categoryId))
                 .map(oldCategory -> {
                     // Change old category name to new one
+                    categoriesByName.remove(key(oldCategory.getName()));
                     oldCategory.setName(category.getName());
+                    Category savedCategory = remember(categoryRepository.save(oldCategory));
+
+                    // Products in this category are now found by the new name
+                    productSearchIndex.renameCategory(savedCategory.getId(), savedCategory.getName());
 
-                    return categoryRepository.save(oldCategory);
+                    return savedCategory;
                 })
                 // If category not exist, throw exception
                 .orElseThrow(() -> new EntityNotFoundException("Category not found!"));
@@ -46,7 +140,10 @@ public class CategoryService implements ICategoryService {
         // Find the category by id
         categoryRepository.findById(categoryId)
                 // Delete the category if it's existed
-                .ifPresentOrElse(categoryRepository::delete, () -> {
+                .ifPresentOrElse(category -> {
+                    categoryRepository.delete(category);
+                    categoriesByName.remove(key(category.getName()));
+                }, () -> {
                     // If category not exist, throw exception
                     throw new EntityNotFoundException("Category not found");
                 });
@@ -57,6 +154,18 @@ public class CategoryService implements ICategoryService {
         return categoryRepository.findAll();
     }
 
+    @Override
+    public ResourceVersionDto getCategoryVersion(Category category) {
+        return new ResourceVersionDto("\"" + category.getVersion() + "\"", category.getLastModified());
+    }
+
+    @Override
+    public ResourceVersionDto getCategoriesVersion(List<Category> categories) {
+        // Every category version, so an added, renamed or removed category changes the ETag
+        return ResourceVersionDto.ofEntries(categories.stream()
+                .map(category -> category.getId() + ":" + category.getVersion()));
+    }
+
     @Override
     public Category findCategoryByName(String name) {
         return categoryRepository.findByName(name);
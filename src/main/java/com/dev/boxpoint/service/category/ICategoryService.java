@@ -1,14 +1,18 @@
 package com.dev.boxpoint.service.category;
 
+import com.dev.boxpoint.dtos.ResourceVersionDto;
 import com.dev.boxpoint.model.Category;
 
 import java.util.List;
 
 public interface ICategoryService {
     Category addCategory(Category category);
+    Category resolveCategory(String name);
     Category updateCategory(Category category, Long categoryId);
     void deleteCategory(Long categoryId);
     List<Category> getAllCategories();
+    ResourceVersionDto getCategoryVersion(Category category);
+    ResourceVersionDto getCategoriesVersion(List<Category> categories);
     Category findCategoryByName(String name);
     Category findCategoryById(Long categoryId);
 }
@@ -1,14 +1,23 @@
 package com.dev.boxpoint.service.image;
 
-import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.dtos.ImageUploadResultDto;
+import com.dev.boxpoint.enums.ImageVariant;
 import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.projection.ImageFileView;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public interface IImageService {
     Image getImageById(Long imageId);
+    ImageFileView getImageFile(Long imageId);
+    ImageFileView getImageVariant(ImageFileView image, ImageVariant variant);
+    void writeImage(ImageFileView image, long offset, long length, OutputStream out);
+    Optional<Path> findLocalFile(ImageFileView image);
     void deleteImageById(Long imageId);
     void updateImage(MultipartFile file, Long imageId);
-    List<ImageDto> saveImages(Long productId, List<MultipartFile> files);
+    List<ImageUploadResultDto> saveImages(Long productId, List<MultipartFile> files);
 }
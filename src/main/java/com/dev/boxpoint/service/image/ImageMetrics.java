@@ -0,0 +1,38 @@
+package com.dev.boxpoint.service.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the image bytes going in and out, exported as {@code images_bytes_total}
+ * with a {@code direction} tag of {@code upload} or {@code download}.
+ */
+@Component
+public class ImageMetrics {
+
+    private final Counter uploadedBytes;
+    private final Counter downloadedBytes;
+
+    public ImageMetrics(MeterRegistry meterRegistry) {
+        this.uploadedBytes = bytesCounter(meterRegistry, "upload", "Image bytes stored from uploads");
+        this.downloadedBytes = bytesCounter(meterRegistry, "download", "Image bytes served to clients");
+    }
+
+    public void recordUpload(long bytes) {
+        uploadedBytes.increment(bytes);
+    }
+
+    public void recordDownload(long bytes) {
+        downloadedBytes.increment(bytes);
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String direction, String description) {
+        return Counter.builder("images.bytes")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("direction", direction)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
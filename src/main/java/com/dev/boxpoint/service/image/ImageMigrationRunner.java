@@ -0,0 +1,89 @@
+package com.dev.boxpoint.service.image;
+
+import com.dev.boxpoint.repository.ImageContentRepository;
+import com.dev.boxpoint.repository.ImageRepository;
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import com.dev.boxpoint.service.image.storage.StoredImage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves image content that is still stored as a database BLOB into the image storage.
+ * Run once with {@code --images.migration.run=true}; each batch is streamed out of the
+ * database one image at a time and its rows are switched over in a single transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "images.migration.run", havingValue = "true")
+public class ImageMigrationRunner implements ApplicationRunner {
+
+    private final ImageRepository imageRepository;
+    private final ImageContentRepository imageContentRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageVariantGenerator imageVariantGenerator;
+
+    @Value("${images.migration.batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long migrated = 0;
+        List<Long> ids;
+
+        while (!(ids = imageRepository.findIdsStoredInDatabase(Limit.of(batchSize))).isEmpty()) {
+            migrated += migrateBatch(ids);
+            log.info("Moved {} images out of the database so far", migrated);
+        }
+
+        log.info("Image migration finished, {} images moved", migrated);
+    }
+
+    private int migrateBatch(List<Long> ids) {
+        // Copy every BLOB of the batch to the image storage first
+        Map<Long, StoredImage> stored = new LinkedHashMap<>();
+        for (Long id : ids) {
+            stored.put(id, imageContentRepository.readContent(id, imageStorage::save));
+        }
+
+        try {
+            // Then point all rows at their stored content and drop the BLOBs in one transaction
+            List<String> moved = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<Long, StoredImage> entry : stored.entrySet()) {
+                    StoredImage image = entry.getValue();
+                    int updated = imageRepository.moveToStorage(
+                            entry.getKey(), image.key(), image.contentHash(), image.size());
+
+                    // The image was changed meanwhile, its copy is not needed
+                    if (updated == 0) {
+                        imageStorage.delete(image.key());
+                    } else {
+                        moved.add(image.key());
+                    }
+                }
+            });
+
+            // Resize the moved images once their rows point at the storage
+            moved.forEach(imageVariantGenerator::generateAsync);
+            return moved.size();
+        } catch (RuntimeException e) {
+            // Nothing was switched over, so none of the copies are referenced
+            stored.values().forEach(image -> imageStorage.delete(image.key()));
+            throw e;
+        }
+    }
+}
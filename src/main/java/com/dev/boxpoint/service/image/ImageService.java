@@ -1,27 +1,74 @@
 package com.dev.boxpoint.service.image;
 
-import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.dtos.ImageUploadResultDto;
+import com.dev.boxpoint.enums.ImageVariant;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.mapper.ImageMapper;
 import com.dev.boxpoint.model.Image;
 import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ImageFileView;
+import com.dev.boxpoint.repository.ImageContentRepository;
 import com.dev.boxpoint.repository.ImageRepository;
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import com.dev.boxpoint.service.image.storage.StoredImage;
 import com.dev.boxpoint.service.product.IProductService;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
-import java.sql.SQLException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Service
-@RequiredArgsConstructor
 public class ImageService implements IImageService {
 
     private final ImageRepository imageRepository;
     private final IProductService productService;
+    private final ImageContentRepository imageContentRepository;
+    private final ImageStorage imageStorage;
+    private final ImageMapper imageMapper;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final ImageMetrics imageMetrics;
+
+    // Limits how many uploaded files are read and stored at the same time
+    private final Semaphore uploadPermits;
+
+    public ImageService(
+            ImageRepository imageRepository,
+            IProductService productService,
+            ImageContentRepository imageContentRepository,
+            ImageStorage imageStorage,
+            ImageMapper imageMapper,
+            ImageVariantGenerator imageVariantGenerator,
+            ImageMetrics imageMetrics,
+            @Value("${images.upload.concurrency:8}") int uploadConcurrency) {
+        this.imageRepository = imageRepository;
+        this.productService = productService;
+        this.imageContentRepository = imageContentRepository;
+        this.imageStorage = imageStorage;
+        this.imageMapper = imageMapper;
+        this.imageVariantGenerator = imageVariantGenerator;
+        this.imageMetrics = imageMetrics;
+        this.uploadPermits = new Semaphore(uploadConcurrency);
+    }
 
     @Override
     public Image getImageById(Long imageId) {
@@ -31,10 +78,78 @@ public class ImageService implements IImageService {
                 .orElseThrow(() -> new EntityNotFoundException("Image not found!"));
     }
 
+    @Override
+    public ImageFileView getImageFile(Long imageId) {
+        // Load the download metadata only, never the image content
+        ImageFileView file = imageRepository.findFileById(imageId)
+                .orElseThrow(() -> new EntityNotFoundException("Image not found!"));
+
+        if (file.contentHash() != null) {
+            return file;
+        }
+
+        // Images stored before hashes were kept: hash the content once by streaming it
+        MessageDigest digest = sha256();
+        long size = imageContentRepository.copyContent(
+                imageId, 0, Long.MAX_VALUE, new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        imageRepository.updateContentInfo(imageId, contentHash, size);
+
+        return new ImageFileView(file.id(), file.fileName(), file.fileType(), contentHash, size, file.storageKey());
+    }
+
+    @Override
+    public ImageFileView getImageVariant(ImageFileView image, ImageVariant variant) {
+        // Only images in the image storage have variants
+        if (image.storageKey() == null) {
+            return image;
+        }
+
+        // Serve the original until the variant is generated, or when the image is already small enough
+        String key = variant.keyOf(image.storageKey());
+        OptionalLong size = imageStorage.sizeOf(key);
+        if (size.isEmpty()) {
+            return image;
+        }
+
+        // The variant is derived from the content, so the original hash plus the variant identifies it
+        String fileName = Optional.ofNullable(image.fileName()).orElse("image")
+                .replaceFirst("(\\.[^.]*)?$", "-" + variant.getParam() + ".jpg");
+        return new ImageFileView(image.id(), fileName, MediaType.IMAGE_JPEG_VALUE,
+                image.contentHash() + "-" + variant.getParam(), size.getAsLong(), key);
+    }
+
+    @Override
+    public void writeImage(ImageFileView image, long offset, long length, OutputStream out) {
+        if (image.storageKey() != null) {
+            // Stream the requested bytes from the image storage
+            imageStorage.copyTo(image.storageKey(), offset, length, out);
+        } else {
+            // Not migrated yet: stream the requested bytes from the database BLOB
+            imageContentRepository.copyContent(image.id(), offset, length, out);
+        }
+    }
+
+    @Override
+    public Optional<Path> findLocalFile(ImageFileView image) {
+        return Optional.ofNullable(image.storageKey()).flatMap(imageStorage::localPath);
+    }
+
     @Override
     public void deleteImageById(Long imageId) {
         // Delete image by id
-        imageRepository.findById(imageId).ifPresentOrElse(imageRepository::delete, () -> {
+        imageRepository.findById(imageId).ifPresentOrElse(image -> {
+            imageRepository.delete(image);
+
+            // Remove the content and its variants once the row is gone
+            Optional.ofNullable(image.getStorageKey()).ifPresent(key -> {
+                imageStorage.delete(key);
+                imageVariantGenerator.delete(key);
+            });
+
+            // The product still lists this image
+            markProductChanged(image.getProduct());
+        }, () -> {
             // Throw exception if image not exist
             throw new EntityNotFoundException("Image not found!");
         });
@@ -44,83 +159,152 @@ public class ImageService implements IImageService {
     public void updateImage(MultipartFile file, Long imageId) {
         // Get image by id
         Image image = getImageById(imageId);
+        String oldStorageKey = image.getStorageKey();
 
         try {
             // Try to update existing image
             image.setFileName(file.getOriginalFilename());
             image.setFileType(file.getContentType());
-            image.setImage(new SerialBlob(file.getBytes()));
+            setContent(image, file);
 
             // Save new image
             imageRepository.save(image);
-        } catch (IOException | SQLException e) {
+
+            // The old content and its variants are no longer referenced
+            Optional.ofNullable(oldStorageKey).ifPresent(key -> {
+                imageStorage.delete(key);
+                imageVariantGenerator.delete(key);
+            });
+
+            // Resize the new content in the background
+            imageVariantGenerator.generateAsync(image.getStorageKey());
+
+            // The product still lists the old file name
+            markProductChanged(image.getProduct());
+        } catch (IOException e) {
             // Throw error if something goes wrong while updating image
             throw new RuntimeException(e.getMessage());
         }
     }
 
     @Override
-    public List<ImageDto> saveImages(Long productId, List<MultipartFile> files) {
+    public List<ImageUploadResultDto> saveImages(Long productId, List<MultipartFile> files) {
         // Get the product by its ID (this links the uploaded images to the correct product)
         Product product = productService.getProductById(productId);
 
-        // Create a list to store information about all saved images
-        List<ImageDto> savedImages = new ArrayList<>();
+        // One result per uploaded file, in upload order
+        ImageUploadResultDto[] results = new ImageUploadResultDto[files.size()];
+        Image[] images = new Image[files.size()];
 
-        // Loop through each uploaded file
-        for (MultipartFile file : files) {
-            try {
-                // Create a new Image entity (this represents a row in the database)
-                Image image = new Image();
+        // Read, validate and store every file concurrently on virtual threads
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Image>> prepared = files.stream()
+                    .map(file -> executor.submit(() -> prepareImage(file, product)))
+                    .toList();
 
-                // Set the original filename of the uploaded file
-                image.setFileName(file.getOriginalFilename());
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    images[i] = prepared.get(i).get();
+                } catch (ExecutionException e) {
+                    // A failed file only fails its own result
+                    results[i] = new ImageUploadResultDto(
+                            files.get(i).getOriginalFilename(), false, null, e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Upload interrupted");
+                }
+            }
+        }
 
-                // Set the file's MIME type (like image/png or image/jpeg)
-                image.setFileType(file.getContentType());
+        List<Image> storedImages = Arrays.stream(images).filter(Objects::nonNull).toList();
+        if (!storedImages.isEmpty()) {
+            try {
+                // Save all stored images in one transaction; ids come from a pooled sequence, so the inserts are batched
+                imageRepository.saveAll(storedImages);
+            } catch (RuntimeException e) {
+                deleteStoredContent(storedImages);
+                throw e;
+            }
+
+            // The product does not list the new images yet
+            markProductChanged(product);
 
-                // Convert the file's byte data into a database-friendly format (BLOB)
-                image.setImage(new SerialBlob(file.getBytes()));
+            // Resize the new images in the background, the response does not wait for it
+            storedImages.forEach(image -> imageVariantGenerator.generateAsync(image.getStorageKey()));
+        }
 
-                // Link the image to the specific product
-                image.setProduct(product);
+        // Return the saved image details (the download URL is derived from the id) next to the failures
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] != null) {
+                results[i] = new ImageUploadResultDto(images[i].getFileName(), true, imageMapper.toDto(images[i]), null);
+            }
+        }
+        return List.of(results);
+    }
 
-                // Base URL for downloading images later
-                String buildDownloadUrl = "/api/v1/images/image/download/";
+    private Image prepareImage(MultipartFile file, Product product) throws IOException, InterruptedException {
+        // Only validate and store a bounded number of files at once across all uploads
+        uploadPermits.acquire();
+        try {
+            // Reject empty files and anything that is not an image
+            if (file.isEmpty()) {
+                throw new BadRequestException("File is empty!");
+            }
+            if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+                throw new BadRequestException("Only image files can be uploaded!");
+            }
 
-                // Temporarily build the download URL (image ID is not known yet because it's not saved)
-                String downloadUrl = buildDownloadUrl + image.getId();
+            // Create a new Image entity (this represents a row in the database)
+            Image image = new Image();
 
-                // Set this temporary URL (will be updated after saving)
-                image.setDownloadUrl(downloadUrl);
+            // Set the original filename and MIME type (like image/png or image/jpeg) of the uploaded file
+            image.setFileName(file.getOriginalFilename());
+            image.setFileType(file.getContentType());
 
-                // Save the image to the database for the first time (this generates an ID)
-                Image savedImage = imageRepository.save(image);
+            // Write the file's content to the image storage
+            setContent(image, file);
 
-                // Now that the image has an ID, rebuild the correct download URL
-                savedImage.setDownloadUrl(buildDownloadUrl + savedImage.getId());
+            // Link the image to the specific product
+            image.setProduct(product);
 
-                // Save again to update the record with the correct download URL
-                imageRepository.save(savedImage);
+            return image;
+        } finally {
+            uploadPermits.release();
+        }
+    }
 
-                // Create a Data Transfer Object (DTO) to send back to the client
-                ImageDto imageDto = new ImageDto();
+    private void deleteStoredContent(List<Image> images) {
+        // Nothing was saved, so none of the stored files are referenced
+        images.stream()
+                .map(Image::getStorageKey)
+                .filter(Objects::nonNull)
+                .forEach(imageStorage::delete);
+    }
 
-                // Copy the saved image's ID, filename and download URL
-                imageDto.setId(savedImage.getId());
-                imageDto.setFileName(savedImage.getFileName());
-                imageDto.setDownloadUrl(savedImage.getDownloadUrl());
+    private void setContent(Image image, MultipartFile file) throws IOException {
+        // Stream the upload into the image storage, the row keeps only its key, hash and size
+        try (InputStream content = file.getInputStream()) {
+            StoredImage stored = imageStorage.save(content);
+            image.setStorageKey(stored.key());
+            image.setContentHash(stored.contentHash());
+            image.setFileSize(stored.size());
+            image.setImage(null);
+            imageMetrics.recordUpload(stored.size());
+        }
+    }
 
-                // Add this DTO to the list of saved images
-                savedImages.add(imageDto);
-            } catch (IOException | SQLException e) {
-                // If something goes wrong (like reading bytes or creating a blob), throw a runtime error
-                throw new RuntimeException(e.getMessage());
-            }
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        // Return all successfully saved image details
-        return savedImages;
+    private void markProductChanged(Product product) {
+        // The product's images changed: new product version for HTTP validators, and no stale cached DTO
+        Optional.ofNullable(product)
+                .ifPresent(p -> productService.markProductChanged(p.getId()));
     }
 
 }
@@ -0,0 +1,172 @@
+package com.dev.boxpoint.service.image;
+
+import com.dev.boxpoint.enums.ImageVariant;
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the resized variants of stored images in the background. Every variant is a
+ * JPEG that fits in the variant's bounding box; images already smaller than a variant do
+ * not get one, and downloads of a missing variant fall back to the original. Images with
+ * more than {@code images.variants.max-pixels} pixels are never decoded, and uploads that
+ * arrive while the queue is full get no variants either.
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    private final ImageStorage imageStorage;
+
+    // Decoding allocates 4 bytes per pixel, so a small file declaring a huge size must not be decoded
+    private final long maxPixels;
+
+    // Resizing is CPU bound, so it runs on a small fixed pool with a bounded queue instead of the request threads
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantGenerator(
+            ImageStorage imageStorage,
+            @Value("${images.variants.threads:2}") int threads,
+            @Value("${images.variants.queue-capacity:100}") int queueCapacity,
+            @Value("${images.variants.max-pixels:40000000}") long maxPixels) {
+        this.imageStorage = imageStorage;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-variants-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void generateAsync(String storageKey) {
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(storageKey);
+                } catch (RuntimeException e) {
+                    log.warn("Image variants could not be generated for {}", storageKey, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Too many uploads waiting, the image is served as the original only
+            log.warn("Image variant queue is full, skipping variants for {}", storageKey);
+        }
+    }
+
+    public void generate(String storageKey) {
+        BufferedImage original;
+        try (InputStream content = imageStorage.open(storageKey);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            original = input == null ? null : read(input, storageKey);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Formats ImageIO cannot decode, and images over the pixel limit, are only served as the original
+        if (original == null) {
+            return;
+        }
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (Math.max(original.getWidth(), original.getHeight()) <= variant.getMaxSize()) {
+                continue;
+            }
+            imageStorage.saveAs(variant.keyOf(storageKey), new ByteArrayInputStream(toJpeg(resize(original, variant.getMaxSize()))));
+        }
+
+        // The image was deleted or replaced while resizing, its variants are not needed
+        if (imageStorage.sizeOf(storageKey).isEmpty()) {
+            delete(storageKey);
+        }
+    }
+
+    public void delete(String storageKey) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            imageStorage.delete(variant.keyOf(storageKey));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private BufferedImage read(ImageInputStream input, String storageKey) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            log.debug("No image reader for {}, skipping variants", storageKey);
+            return null;
+        }
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+
+            // The size comes from the header, nothing is decoded yet
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > maxPixels) {
+                log.warn("Image {} has {} pixels, over the limit of {}, skipping variants", storageKey, pixels, maxPixels);
+                return null;
+            }
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage image, int maxSize) {
+        double scale = (double) maxSize / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // Halve the image step by step first, a single bilinear pass loses too much detail
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG has no alpha channel, so transparent parts are drawn on white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
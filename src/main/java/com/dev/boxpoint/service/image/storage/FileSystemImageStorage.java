@@ -0,0 +1,155 @@
+package com.dev.boxpoint.service.image.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Stores each image as a file under a root directory, spread over two levels of
+ * sub-directories so no single directory grows too large.
+ */
+@Component
+public class FileSystemImageStorage implements ImageStorage {
+
+    private final Path root;
+
+    public FileSystemImageStorage(@Value("${images.storage.root:./data/images}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StoredImage save(InputStream content) {
+        String id = UUID.randomUUID().toString();
+        String key = id.substring(0, 2) + "/" + id.substring(2, 4) + "/" + id;
+        Path target = resolve(key);
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            // Write to a temporary file first, so a half-written image is never visible under its key
+            Path temp = Files.createTempFile(target.getParent(), id, ".tmp");
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                long size;
+                try (InputStream in = new DigestInputStream(content, digest)) {
+                    size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+                return new StoredImage(key, HexFormat.of().formatHex(digest.digest()), size);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void saveAs(String key, InputStream content) {
+        Path target = resolve(key);
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            // Same as save: never expose a half-written file under its key
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Image content missing for " + key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void copyTo(String key, long offset, long length, OutputStream out) {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            // transferTo lets the OS move the bytes without copying them through the heap where it can
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            long remaining = Math.min(length, channel.size() - offset);
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Image content missing for " + key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public OptionalLong sizeOf(String key) {
+        try {
+            return OptionalLong.of(Files.size(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return OptionalLong.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key)).filter(Files::isRegularFile);
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path resolve(String key) {
+        // Keys are generated here, but never let one point outside the root
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key!");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dev.boxpoint.service.image.storage;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Keeps image content outside the database. The Image row only holds the storage key.
+ */
+public interface ImageStorage {
+    StoredImage save(InputStream content);
+
+    // Store content under a key derived from another one, like a resized variant of an image
+    void saveAs(String key, InputStream content);
+
+    InputStream open(String key);
+
+    void copyTo(String key, long offset, long length, OutputStream out);
+
+    OptionalLong sizeOf(String key);
+
+    // The content as a local file, when the backend has one (used to serve it with sendfile)
+    Optional<Path> localPath(String key);
+
+    void delete(String key);
+}
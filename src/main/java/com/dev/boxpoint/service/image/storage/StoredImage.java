@@ -0,0 +1,7 @@
+package com.dev.boxpoint.service.image.storage;
+
+/**
+ * Where an image was stored, its SHA-256 content hash and its size in bytes.
+ */
+public record StoredImage(String key, String contentHash, long size) {
+}
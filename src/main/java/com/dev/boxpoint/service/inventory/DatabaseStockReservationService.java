@@ -0,0 +1,49 @@
+package com.dev.boxpoint.service.inventory;
+
+import com.dev.boxpoint.config.CacheConfig;
+import com.dev.boxpoint.exceptions.InsufficientStockException;
+import com.dev.boxpoint.repository.ProductInventoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Function;
+
+/**
+ * Takes stock straight from {@code product.inventory} with conditional updates, in the
+ * order's own transaction. The default; see {@link LedgerStockReservationService} for
+ * products that take more checkouts than their row lock allows.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "false", matchIfMissing = true)
+public class DatabaseStockReservationService implements IStockReservationService {
+
+    private final ProductInventoryRepository productInventoryRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public <T> T reserve(SortedMap<Long, Integer> quantities, Function<Long, T> orderWriter) {
+        T order = transactionTemplate.execute(status -> {
+            // The items take their stock now, nothing is settled later
+            T result = orderWriter.apply(null);
+
+            // Take the stock of every line with one batch, all or nothing; done last, so the
+            // products' rows stay locked only until the commit
+            List<Long> outOfStock = productInventoryRepository.reserve(quantities);
+            if (!outOfStock.isEmpty()) {
+                throw new InsufficientStockException(outOfStock);
+            }
+            return result;
+        });
+
+        // The products' inventory changed
+        quantities.keySet().forEach(productId -> cacheManager.getCache(CacheConfig.PRODUCTS).evict(productId));
+        return order;
+    }
+}
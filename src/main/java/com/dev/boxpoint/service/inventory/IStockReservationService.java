@@ -0,0 +1,33 @@
+package com.dev.boxpoint.service.inventory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public interface IStockReservationService {
+
+    /**
+     * Takes the stock of every line, all or nothing, and writes the order in a transaction.
+     * The order writer gets the stock settlement to set on the order's items.
+     */
+    <T> T reserve(SortedMap<Long, Integer> quantities, Function<Long, T> orderWriter);
+
+    /**
+     * Units of the products that are in stock but not in {@code product.inventory}, by
+     * product; reads add them to the inventory.
+     */
+    default Map<Long, Long> findHeldUnits(Collection<Long> productIds) {
+        return Map.of();
+    }
+
+    /**
+     * Runs a write that sets the product's inventory to an absolute count. Units held
+     * outside {@code product.inventory} are dropped with it, so they are not counted twice.
+     */
+    default <T> T replaceStock(Long productId, Supplier<T> inventoryWriter) {
+        return inventoryWriter.get();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.dev.boxpoint.service.inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Units available per product, each split over a number of stripes. A reservation takes
+ * its units from one stripe with a compare-and-set, so concurrent checkouts of the same
+ * product mostly touch different counters instead of one lock or one row.
+ */
+final class InventoryLedger {
+
+    // Stripes are this many longs apart, so no two share a cache line (or its prefetched neighbour)
+    private static final int PADDING = 16;
+
+    private final int stripeCount;
+    private final Map<Long, AtomicLongArray> units = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    InventoryLedger(int stripeCount) {
+        this.stripeCount = stripeCount;
+    }
+
+    /**
+     * Takes the units from a single stripe, starting at a random one; false if no stripe
+     * holds enough of them on its own.
+     */
+    boolean tryReserve(Long productId, int quantity) {
+        AtomicLongArray stripes = stripes(productId);
+        int start = ThreadLocalRandom.current().nextInt(stripeCount);
+
+        for (int i = 0; i < stripeCount; i++) {
+            int stripe = ((start + i) % stripeCount) * PADDING;
+            long available;
+            while ((available = stripes.get(stripe)) >= quantity) {
+                if (stripes.compareAndSet(stripe, available, available - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes all units of the product out of its stripes.
+     */
+    long drain(Long productId) {
+        AtomicLongArray stripes = stripes(productId);
+        long drained = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            drained += stripes.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    /**
+     * Units of the product in its stripes, without taking them; may miss a concurrent change.
+     */
+    long available(Long productId) {
+        AtomicLongArray stripes = units.get(productId);
+        if (stripes == null) {
+            return 0;
+        }
+        long available = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            available += stripes.get(i * PADDING);
+        }
+        return available;
+    }
+
+    /**
+     * Spreads the units evenly over the product's stripes.
+     */
+    void add(Long productId, long count) {
+        AtomicLongArray stripes = stripes(productId);
+        for (int i = 0; i < stripeCount; i++) {
+            long share = count / stripeCount + (i < count % stripeCount ? 1 : 0);
+            if (share > 0) {
+                stripes.addAndGet(i * PADDING, share);
+            }
+        }
+    }
+
+    /**
+     * Takes all units of every product, by product.
+     */
+    Map<Long, Long> drainAll() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long productId : units.keySet()) {
+            ReentrantLock lock = lock(productId);
+            lock.lock();
+            try {
+                long count = drain(productId);
+                if (count > 0) {
+                    drained.put(productId, count);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * The product's lock for moving units in and out of all its stripes at once. Held
+     * across a database round trip, so it is a lock that never pins a virtual thread.
+     */
+    ReentrantLock lock(Long productId) {
+        return locks.computeIfAbsent(productId, id -> new ReentrantLock());
+    }
+
+    private AtomicLongArray stripes(Long productId) {
+        return units.computeIfAbsent(productId, id -> new AtomicLongArray(stripeCount * PADDING));
+    }
+}
@@ -0,0 +1,254 @@
+package com.dev.boxpoint.service.inventory;
+
+import com.dev.boxpoint.config.CacheConfig;
+import com.dev.boxpoint.exceptions.InsufficientStockException;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.repository.InventoryLedgerRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hands out stock from memory for flash sales, enabled with {@code inventory.ledger.enabled}.
+ * Units are moved from {@code product.inventory} into a per-product allocation a chunk at a
+ * time, and reservations take them from the {@link InventoryLedger}'s striped counters
+ * without a database lock. Order items record that their units came from the ledger; a
+ * periodic flush subtracts them from the allocations in one batch.
+ * <p>
+ * Committed order items are the record of what was sold, so nothing is lost in a crash: on
+ * the next start the pending items are settled, and whatever is still allocated goes back
+ * to the products. The ledger is per application instance; run a single instance with it.
+ * <p>
+ * Units in memory are still in stock: reads add them to {@code product.inventory}, and an
+ * absolute inventory write drops them in its transaction instead of adding to them.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class LedgerStockReservationService implements IStockReservationService, SmartInitializingSingleton {
+
+    // Allocating is retried this often when the inventory changes between reading and taking it
+    private static final int ALLOCATE_ATTEMPTS = 3;
+
+    private final InventoryLedgerRepository inventoryLedgerRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryLedger ledger;
+    private final int chunkSize;
+    private final Duration flushInterval;
+
+    // One settling thread, so settlements never overlap
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("inventory-ledger").daemon().factory());
+
+    public LedgerStockReservationService(
+            InventoryLedgerRepository inventoryLedgerRepository,
+            CacheManager cacheManager,
+            TransactionTemplate transactionTemplate,
+            @Value("${inventory.ledger.stripes:8}") int stripes,
+            @Value("${inventory.ledger.chunk-size:200}") int chunkSize,
+            @Value("${inventory.ledger.flush-interval:1s}") Duration flushInterval) {
+        this.inventoryLedgerRepository = inventoryLedgerRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = transactionTemplate;
+        this.ledger = new InventoryLedger(stripes);
+        this.chunkSize = chunkSize;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Before the first request: settle what was sold before a crash, and give back the rest
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryLedgerRepository.settlePendingItems();
+            Map<Long, Long> allocations = inventoryLedgerRepository.findAllocations();
+            inventoryLedgerRepository.release(allocations);
+            if (!allocations.isEmpty()) {
+                log.info("Gave {} allocations back to their products", allocations.size());
+            }
+        });
+
+        flusher.scheduleWithFixedDelay(this::settleQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T> T reserve(SortedMap<Long, Integer> quantities, Function<Long, T> orderWriter) {
+        List<Map.Entry<Long, Integer>> reserved = new ArrayList<>();
+        try {
+            // Take every line's units from memory, all or nothing
+            List<Long> outOfStock = new ArrayList<>();
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                if (take(line.getKey(), line.getValue())) {
+                    reserved.add(line);
+                } else {
+                    outOfStock.add(line.getKey());
+                }
+            }
+            if (!outOfStock.isEmpty()) {
+                throw new InsufficientStockException(outOfStock);
+            }
+
+            // The items are settled with the allocations by a later flush
+            return transactionTemplate.execute(status -> orderWriter.apply(OrderItem.STOCK_PENDING));
+        } catch (RuntimeException e) {
+            // Nothing was ordered, the units can be handed out again
+            reserved.forEach(line -> ledger.add(line.getKey(), line.getValue()));
+            throw e;
+        } finally {
+            // Cached reads count the held units, which changed
+            reserved.forEach(line -> cacheManager.getCache(CacheConfig.PRODUCTS).evict(line.getKey()));
+        }
+    }
+
+    private boolean take(Long productId, int quantity) {
+        if (ledger.tryReserve(productId, quantity)) {
+            return true;
+        }
+
+        ReentrantLock lock = ledger.lock(productId);
+        lock.lock();
+        try {
+            // Another thread may have refilled the stripes meanwhile
+            if (ledger.tryReserve(productId, quantity)) {
+                return true;
+            }
+
+            // The units may only be spread too thin, gather them; allocate more if they are too few
+            long available = ledger.drain(productId);
+            if (available < quantity) {
+                int needed = (int) (quantity - available);
+                available += allocate(productId, needed, Math.max(chunkSize, needed));
+            }
+            if (available < quantity) {
+                ledger.add(productId, available);
+                return false;
+            }
+            ledger.add(productId, available - quantity);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, Long> findHeldUnits(Collection<Long> productIds) {
+        // Allocated units not handed out yet
+        Map<Long, Long> held = new HashMap<>();
+        for (Long productId : productIds) {
+            long available = ledger.available(productId);
+            if (available > 0) {
+                held.put(productId, available);
+            }
+        }
+        return held;
+    }
+
+    @Override
+    public <T> T replaceStock(Long productId, Supplier<T> inventoryWriter) {
+        ReentrantLock lock = ledger.lock(productId);
+        lock.lock();
+        try {
+            // The new count replaces the units in memory, they leave the allocation with the
+            // write; ordered units stay allocated until their items are settled
+            long held = ledger.drain(productId);
+            try {
+                return transactionTemplate.execute(status -> {
+                    inventoryLedgerRepository.discard(productId, held);
+                    return inventoryWriter.get();
+                });
+            } catch (RuntimeException e) {
+                // The count was not replaced, the units can be handed out again
+                ledger.add(productId, held);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int allocate(Long productId, int needed, int wanted) {
+        for (int attempt = 0; attempt < ALLOCATE_ATTEMPTS; attempt++) {
+            // Never more than the product has left, and nothing for an order it cannot fill;
+            // the inventory may change between reading and allocating
+            Integer allocated = transactionTemplate.execute(status -> {
+                int units = Math.min(wanted, inventoryLedgerRepository.findInventory(productId));
+                if (units < needed) {
+                    return 0;
+                }
+                return inventoryLedgerRepository.allocate(productId, units) ? units : null;
+            });
+
+            if (allocated != null) {
+                if (allocated > 0) {
+                    // The product's inventory changed
+                    cacheManager.getCache(CacheConfig.PRODUCTS).evict(productId);
+                }
+                return allocated;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Subtracts the order items handed out since the last settlement from the allocations.
+     */
+    public void settle() {
+        Map<Long, Long> settled = transactionTemplate.execute(status -> inventoryLedgerRepository.settlePendingItems());
+        log.debug("Settled ordered units of {} products", settled.size());
+
+        // Cached reads of these products still count the units sold since
+        settled.keySet().forEach(productId -> cacheManager.getCache(CacheConfig.PRODUCTS).evict(productId));
+    }
+
+    /**
+     * Gives every unit in memory back to its product.
+     */
+    public void releaseAll() {
+        Map<Long, Long> units = ledger.drainAll();
+        transactionTemplate.executeWithoutResult(status -> inventoryLedgerRepository.release(units));
+        units.keySet().forEach(productId -> cacheManager.getCache(CacheConfig.PRODUCTS).evict(productId));
+    }
+
+    private void settleQuietly() {
+        try {
+            settle();
+        } catch (RuntimeException e) {
+            // Keep the schedule running, the items stay pending for the next settlement
+            log.warn("Inventory settlement failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Orders still in flight settle with their allocation on the next start
+        settle();
+        releaseAll();
+    }
+}
@@ -0,0 +1,15 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.OrderDto;
+import com.dev.boxpoint.model.Order;
+
+public interface IOrderService {
+
+    Order placeOrder(Long userId);
+
+    OrderDto convertToDto(Order order);
+
+    CursorPageDto<OrderDto> getOrderHistory(Long userId, String cursor, Integer size);
+
+}
@@ -0,0 +1,46 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.exceptions.InvalidCursorException;
+import com.dev.boxpoint.projection.OrderView;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Encodes the keyset position of an order history page into an opaque token and back.
+ * Orders are listed newest first, so the token only holds the last order id.
+ */
+final class OrderCursor {
+
+    private OrderCursor() {
+    }
+
+    static KeysetScrollPosition decode(String cursor) {
+        // No cursor means the first page
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            String orderId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return ScrollPosition.forward(Map.of("orderId", Long.valueOf(orderId)));
+        } catch (IllegalArgumentException e) {
+            // Covers malformed Base64 and a token that is not a number
+            throw new InvalidCursorException("Invalid cursor!");
+        }
+    }
+
+    static String encode(Window<OrderView> window) {
+        // Nothing to continue from on the last page
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+
+        String orderId = String.valueOf(window.getContent().get(window.size() - 1).orderId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(orderId.getBytes(StandardCharsets.UTF_8));
+    }
+}
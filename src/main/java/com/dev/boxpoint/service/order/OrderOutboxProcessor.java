@@ -0,0 +1,161 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.repository.OrderOutboxBatchRepository;
+import com.dev.boxpoint.repository.OrderOutboxBatchRepository.ClaimedEvent;
+import com.dev.boxpoint.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the order outbox with a pool of worker threads, off the requests that wrote it.
+ * Each worker claims a batch of events and advances their orders in one transaction, so a
+ * batch is applied completely or returns to the outbox. Workers skip the rows others hold,
+ * which lets throughput grow with {@code orders.outbox.workers} and with the number of
+ * instances; zero workers leaves the outbox to the other instances.
+ * <p>
+ * Exports {@code orders_outbox_depth}, the events waiting, {@code orders_outbox_lag}, the
+ * time from writing an event to applying it, and {@code orders_outbox_events_total} with a
+ * {@code result} of {@code advanced} or {@code skipped}, for events whose order was already
+ * past them or deleted.
+ */
+@Slf4j
+@Component
+public class OrderOutboxProcessor implements SmartInitializingSingleton {
+
+    private final OrderOutboxBatchRepository orderOutboxBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private final Timer lag;
+    private final Counter advanced;
+    private final Counter skipped;
+
+    private final ExecutorService pool;
+    private volatile boolean running = true;
+
+    // The events of a committed batch and how many of them changed an order
+    private record BatchResult(List<ClaimedEvent> events, int advanced) {
+    }
+
+    public OrderOutboxProcessor(
+            OrderOutboxBatchRepository orderOutboxBatchRepository,
+            OrderOutboxRepository orderOutboxRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${orders.outbox.workers:4}") int workers,
+            @Value("${orders.outbox.batch-size:100}") int batchSize,
+            @Value("${orders.outbox.poll-interval:500ms}") Duration pollInterval) {
+        this.orderOutboxBatchRepository = orderOutboxBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+
+        Gauge.builder("orders.outbox.depth", orderOutboxRepository, OrderOutboxRepository::count)
+                .description("Order outbox events waiting to be applied")
+                .register(meterRegistry);
+        this.lag = Timer.builder("orders.outbox.lag")
+                .description("Time from writing an order outbox event to applying it")
+                .register(meterRegistry);
+        this.advanced = eventsCounter(meterRegistry, "advanced");
+        this.skipped = eventsCounter(meterRegistry, "skipped");
+
+        this.pool = workers > 0
+                ? Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("order-outbox-", 0).daemon().factory())
+                : null;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Start once the application is wired, events written before a restart are applied first
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::work);
+        }
+    }
+
+    /**
+     * Claims one batch of events, applies it and returns how many events it held.
+     */
+    public int processBatch() {
+        BatchResult batch = transactionTemplate.execute(status -> {
+            List<ClaimedEvent> claimed = orderOutboxBatchRepository.claim(batchSize);
+            return new BatchResult(claimed, orderOutboxBatchRepository.advance(claimed).size());
+        });
+
+        // Counted and measured once committed, a batch that rolls back is counted when it is claimed again
+        advanced.increment(batch.advanced());
+        skipped.increment(batch.events().size() - batch.advanced());
+        Instant now = Instant.now();
+        batch.events().forEach(event -> lag.record(Duration.between(event.createdAt(), now)));
+        return batch.events().size();
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                // Keep going while batches come back full, wait when the outbox is drained
+                if (processBatch() < batchSize) {
+                    Thread.sleep(pollInterval);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The batch rolled back and is claimed again, by this worker or another
+                log.warn("Order outbox batch failed", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static Counter eventsCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("orders.outbox.events")
+                .tag("result", result)
+                .description("Order outbox events applied")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool == null) {
+            return;
+        }
+
+        // Let the batches in flight commit, what is left is applied after the next start
+        running = false;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
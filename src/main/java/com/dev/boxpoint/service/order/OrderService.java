@@ -0,0 +1,157 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.OrderDto;
+import com.dev.boxpoint.dtos.OrderItemDto;
+import com.dev.boxpoint.enums.OrderStatus;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.exceptions.InsufficientStockException;
+import com.dev.boxpoint.mapper.OrderMapper;
+import com.dev.boxpoint.model.CartItem;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.model.OrderOutboxEvent;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.OrderItemView;
+import com.dev.boxpoint.projection.OrderView;
+import com.dev.boxpoint.repository.OrderItemRepository;
+import com.dev.boxpoint.repository.OrderOutboxRepository;
+import com.dev.boxpoint.repository.OrderRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import com.dev.boxpoint.service.cart.CartStore;
+import com.dev.boxpoint.service.inventory.IStockReservationService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+public class OrderService implements IOrderService {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Newest first; order ids only grow, so they also make the keyset
+    private static final Sort HISTORY_SORT = Sort.by(Sort.Direction.DESC, "orderId");
+
+    private final CartStore cartStore;
+    private final IStockReservationService stockReservationService;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final UserRepository userRepository;
+    private final OrderMapper orderMapper;
+
+    @Override
+    public Order placeOrder(Long userId) {
+        // Take the items out of the cart, so a second checkout of the same cart (a double
+        // submit or a retry) finds it empty, and items added meanwhile stay in the cart
+        List<CartItem> items = cartStore.takeItems(userId);
+        if (items.isEmpty()) {
+            throw new BadRequestException("Cart is empty!");
+        }
+
+        try {
+            return placeOrder(userId, items);
+        } catch (RuntimeException e) {
+            // Nothing was ordered, the items go back into the cart
+            cartStore.returnItems(userId, items);
+            throw e;
+        }
+    }
+
+    private Order placeOrder(Long userId, List<CartItem> items) {
+        // Quantities by product id
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        items.forEach(item -> quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum));
+
+        // Take the stock and write the order, all or nothing
+        return stockReservationService.reserve(quantities, stockSettlement -> {
+            // Lines are charged the current price, read once for the whole order
+            Order newOrder = new Order();
+            newOrder.setUser(userRepository.getReferenceById(userId));
+            newOrder.setOrderDate(LocalDate.now());
+            newOrder.setOrderStatus(OrderStatus.PENDING);
+
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (Product product : productRepository.findAllById(quantities.keySet())) {
+                int quantity = quantities.get(product.getId());
+                OrderItem item = new OrderItem(quantity, product.getPrice(), newOrder, product);
+                item.setStockSettlement(stockSettlement);
+                newOrder.getOrderItems().add(item);
+                totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            }
+            newOrder.setTotalAmount(totalAmount);
+
+            // A product deleted since it was put in the cart has no stock left
+            if (newOrder.getOrderItems().size() < quantities.size()) {
+                List<Long> missing = new ArrayList<>(quantities.keySet());
+                newOrder.getOrderItems().forEach(item -> missing.remove(item.getProduct().getId()));
+                throw new InsufficientStockException(missing);
+            }
+            Order savedOrder = orderRepository.saveAndFlush(newOrder);
+
+            // Processing starts off the request, once the order is committed
+            orderOutboxRepository.save(new OrderOutboxEvent(savedOrder.getOrderId(), OrderStatus.PROCESSING));
+            return savedOrder;
+        });
+    }
+
+    @Override
+    public OrderDto convertToDto(Order order) {
+        return orderMapper.toDto(order);
+    }
+
+    @Override
+    public CursorPageDto<OrderDto> getOrderHistory(Long userId, String cursor, Integer size) {
+        // One page of orders from the index, however many orders the user has
+        Window<OrderView> orders = orderRepository.findViewsByUserId(
+                userId, OrderCursor.decode(cursor), pageLimit(size), HISTORY_SORT);
+
+        // No orders at all may also mean no such user
+        if (orders.isEmpty() && (cursor == null || cursor.isBlank()) && !userRepository.existsById(userId)) {
+            throw new EntityNotFoundException("User not found!");
+        }
+
+        // The items of the whole page with their products, in a second query
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        if (!orders.isEmpty()) {
+            List<Long> orderIds = orders.stream().map(OrderView::orderId).toList();
+            for (OrderItemView item : orderItemRepository.findViewsByOrderIdIn(orderIds)) {
+                itemsByOrder.computeIfAbsent(item.orderId(), id -> new ArrayList<>()).add(orderMapper.toDto(item));
+            }
+        }
+
+        List<OrderDto> orderDtos = orders.stream().map(view -> {
+            OrderDto orderDto = orderMapper.toDto(view);
+            orderDto.setUserId(userId);
+            orderDto.setItems(itemsByOrder.getOrDefault(view.orderId(), List.of()));
+            return orderDto;
+        }).toList();
+        return new CursorPageDto<>(orderDtos, OrderCursor.encode(orders), orders.hasNext());
+    }
+
+    private Limit pageLimit(Integer size) {
+        // Fall back to the default page size and never go over the maximum
+        if (size == null) {
+            return Limit.of(DEFAULT_PAGE_SIZE);
+        }
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1!");
+        }
+        return Limit.of(Math.min(size, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,115 @@
+package com.dev.boxpoint.service.product;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV one record at a time: comma separated, fields optionally quoted,
+ * quotes inside quoted fields doubled, and line breaks allowed inside quoted fields.
+ * A record longer than {@code maxRecordLength} characters is skipped to its end without
+ * being kept in memory and fails with a {@link MalformedRowException}.
+ */
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private int pending = -2;
+
+    CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        long length = 0;
+
+        while (true) {
+            // Past the limit the record is only scanned for its end, nothing more is kept
+            if (c != -1 && ++length == maxRecordLength + 1L) {
+                fields.clear();
+                field.setLength(0);
+                field.trimToSize();
+            }
+            boolean keep = length <= maxRecordLength;
+
+            if (quoted) {
+                if (c == -1) {
+                    // The rest of the input was one unterminated field
+                    throw keep ? new MalformedRowException("Unterminated quoted field!") : tooLong();
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        // A doubled quote is a literal quote
+                        append(field, '"', keep);
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    append(field, c, keep);
+                }
+            } else if (c == '"' && !fieldStarted) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == ',') {
+                if (keep) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+                fieldStarted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                // End of the record, a CRLF counts as one line break
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (!keep) {
+                    throw tooLong();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append(field, c, keep);
+                fieldStarted = true;
+            }
+            c = read();
+        }
+    }
+
+    private static void append(StringBuilder field, int c, boolean keep) {
+        if (keep) {
+            field.append((char) c);
+        }
+    }
+
+    private MalformedRowException tooLong() {
+        return new MalformedRowException("Row is longer than " + maxRecordLength + " characters!");
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
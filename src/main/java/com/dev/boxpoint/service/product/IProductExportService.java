@@ -0,0 +1,9 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.enums.DataFormat;
+
+import java.io.OutputStream;
+
+public interface IProductExportService {
+    void exportProducts(DataFormat format, OutputStream out);
+}
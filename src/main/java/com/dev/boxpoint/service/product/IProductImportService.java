@@ -0,0 +1,21 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.dtos.ProductImportEventDto;
+import com.dev.boxpoint.enums.DataFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface IProductImportService {
+    /**
+     * Reads a CSV body's header right away, so a bad header fails the request before its
+     * response starts. The rows are read when the returned import runs.
+     */
+    ProductImport prepareImport(InputStream content, DataFormat format) throws IOException;
+
+    @FunctionalInterface
+    interface ProductImport {
+        void run(Consumer<ProductImportEventDto> listener);
+    }
+}
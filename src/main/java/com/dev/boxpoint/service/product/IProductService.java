@@ -1,23 +1,41 @@
 package com.dev.boxpoint.service.product;
 
+import com.dev.boxpoint.dtos.CacheStatsDto;
+import com.dev.boxpoint.dtos.CursorPageDto;
 import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.dtos.ResourceVersionDto;
+import com.dev.boxpoint.enums.ProductSort;
 import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.projection.ProductView;
 import com.dev.boxpoint.request.AddProductRequest;
 import com.dev.boxpoint.request.UpdateProductRequest;
+import org.springframework.data.domain.Window;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IProductService {
     Product addProduct(AddProductRequest product);
+    /**
+     * Replaces the product's fields. A category name that does not exist yet creates the
+     * category, as {@link #addProduct} does.
+     */
     Product updateProduct(UpdateProductRequest product, Long productId);
     Product getProductById(Long productId);
+    ProductDto getProductDtoById(Long productId);
+    void markProductChanged(Long productId);
+    ResourceVersionDto getProductVersion(Long productId);
+    ResourceVersionDto getPageVersion(Window<ProductView> products);
+    CacheStatsDto getCacheStats();
     void deleteProductById(Long productId);
-    List<Product> getAllProducts();
-    List<Product> getProductsByCategoryAndBrand(String category, String brand);
-    List<Product> getProductsByCategory(String category);
-    List<Product> getProductsByBrandAndName(String brand, String name);
-    List<Product> getProductsByBrand(String brand);
-    List<Product> getProductsByName(String name);
-    List<ProductDto> getConvertedProducts(List<Product> products);
+    int deleteProducts(Collection<Long> productIds);
+    Window<ProductView> getAllProducts(ProductSort sort, String cursor, Integer size);
+    Window<ProductView> getProductsByCategoryAndBrand(String category, String brand, ProductSort sort, String cursor, Integer size);
+    Window<ProductView> getProductsByCategory(String category, ProductSort sort, String cursor, Integer size);
+    Window<ProductView> getProductsByBrandAndName(String brand, String name, ProductSort sort, String cursor, Integer size);
+    Window<ProductView> getProductsByBrand(String brand, ProductSort sort, String cursor, Integer size);
+    CursorPageDto<ProductDto> searchProducts(String query, String cursor, Integer size);
+    List<ProductDto> getConvertedProducts(List<ProductView> products);
+    CursorPageDto<ProductDto> getConvertedPage(Window<ProductView> products, ProductSort sort);
     ProductDto convertToDto(Product product);
 }
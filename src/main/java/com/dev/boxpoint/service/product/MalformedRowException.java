@@ -0,0 +1,14 @@
+package com.dev.boxpoint.service.product;
+
+import java.io.IOException;
+
+/**
+ * A row of an import that could not be read. The reader has skipped past it, so the
+ * import reports the row as failed and goes on with the next one.
+ */
+final class MalformedRowException extends IOException {
+
+    MalformedRowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,110 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.exceptions.InvalidCursorException;
+import com.dev.boxpoint.projection.ProductView;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes the keyset position of a product page into an opaque token and back.
+ * The token holds the sort it was issued for, the last id and the last sort value, which is
+ * left out when it is null.
+ */
+final class ProductCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private ProductCursor() {
+    }
+
+    static KeysetScrollPosition decode(String cursor, ProductSort sort) {
+        // No cursor means the first page
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor!");
+        }
+
+        // A cursor can only be reused with the sort it was issued for; a null sort value has no third part
+        if (parts.length < 2 || !parts[0].equals(sort.name()) || (sort == ProductSort.ID && parts.length != 3)) {
+            throw new InvalidCursorException("Invalid cursor for sort " + sort + "!");
+        }
+
+        // Null sort values are kept as keys, the next page continues inside the nulls
+        Map<String, Object> keys = new HashMap<>();
+        try {
+            keys.put("id", Long.valueOf(parts[1]));
+            String value = parts.length == 3 ? parts[2] : null;
+            switch (sort) {
+                case PRICE -> keys.put(sort.getProperty(), value == null ? null : new BigDecimal(value));
+                case NAME -> keys.put(sort.getProperty(), value);
+                default -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor!");
+        }
+
+        return ScrollPosition.forward(keys);
+    }
+
+    static String encode(Window<ProductView> window, ProductSort sort) {
+        // Nothing to continue from on the last page
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+
+        ProductView last = window.getContent().get(window.size() - 1);
+        String value = switch (sort) {
+            case PRICE -> last.price() == null ? null : last.price().toPlainString();
+            case NAME -> last.name();
+            default -> "";
+        };
+
+        // A null sort value leaves out the value part, an empty name keeps it
+        String raw = sort.name() + SEPARATOR + last.id() + (value == null ? "" : SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetScrollPosition positionOf(ProductView product, ProductSort sort) {
+        Map<String, Object> keys = new HashMap<>();
+        keys.put("id", product.id());
+        switch (sort) {
+            case PRICE -> keys.put(sort.getProperty(), product.price());
+            case NAME -> keys.put(sort.getProperty(), product.name());
+            default -> {
+            }
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Whether the position continues among the products whose sort value is null.
+     */
+    static boolean isInsideNulls(KeysetScrollPosition position, ProductSort sort) {
+        return sort != ProductSort.ID
+                && position.getKeys().containsKey(sort.getProperty())
+                && position.getKeys().get(sort.getProperty()) == null;
+    }
+
+    /**
+     * The position before every product whose sort value is {@code lowest} or more.
+     */
+    static KeysetScrollPosition from(ProductSort sort, Object lowest) {
+        return ScrollPosition.forward(Map.of(sort.getProperty(), lowest, "id", Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,97 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.dtos.ImageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.enums.DataFormat;
+import com.dev.boxpoint.projection.ProductView;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as CSV or NDJSON while reading it. Products are streamed from
+ * one cursor as projections, which never enter the persistence context, and converted in
+ * batches, so memory use does not depend on the size of the catalog.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductExportService implements IProductExportService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final List<String> CSV_HEADER =
+            List.of("id", "name", "brand", "price", "inventory", "description", "category", "images");
+
+    private final ProductRepository productRepository;
+    private final IProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    // The stream needs an open transaction until the last row is read
+    @Transactional(readOnly = true)
+    public void exportProducts(DataFormat format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CsvRecordWriter csv = new CsvRecordWriter(writer);
+
+        try (Stream<ProductView> products = productRepository.streamViewsByOrderByIdAsc()) {
+            if (format == DataFormat.CSV) {
+                csv.write(CSV_HEADER);
+            }
+
+            Iterator<ProductView> iterator = products.iterator();
+            List<ProductView> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    writeBatch(batch, format, writer, csv);
+                    batch.clear();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBatch(List<ProductView> batch, DataFormat format, Writer writer, CsvRecordWriter csv) throws IOException {
+        // Convert the batch with one query for the image metadata of all its products
+        for (ProductDto product : productService.getConvertedProducts(batch)) {
+            if (format == DataFormat.CSV) {
+                csv.write(toCsvRecord(product));
+            } else {
+                writer.write(objectMapper.writeValueAsString(product));
+                writer.write('\n');
+            }
+        }
+
+        writer.flush();
+    }
+
+    private static List<String> toCsvRecord(ProductDto product) {
+        return List.of(
+                String.valueOf(product.getId()),
+                Optional.ofNullable(product.getName()).orElse(""),
+                Optional.ofNullable(product.getBrand()).orElse(""),
+                Optional.ofNullable(product.getPrice()).map(price -> price.toPlainString()).orElse(""),
+                String.valueOf(product.getInventory()),
+                Optional.ofNullable(product.getDescription()).orElse(""),
+                Optional.ofNullable(product.getCategory()).map(category -> category.getName()).orElse(""),
+                // Image download URLs separated by spaces
+                product.getImages().stream().map(ImageDto::getDownloadUrl).collect(Collectors.joining(" ")));
+    }
+}
@@ -0,0 +1,324 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.dtos.ProductImportEventDto;
+import com.dev.boxpoint.enums.DataFormat;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.ProductBatchRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.request.AddProductRequest;
+import com.dev.boxpoint.service.category.ICategoryService;
+import com.dev.boxpoint.service.search.ProductSearchIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Imports products from a CSV or NDJSON stream in chunks. Only one chunk of rows is held
+ * in memory; each chunk is checked for existing products with one query and inserted with
+ * one JDBC batch in its own transaction, so a failing chunk does not undo earlier ones.
+ * A single row is never buffered beyond {@code products.import.max-row-length} characters.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService implements IProductImportService {
+
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("name", "brand", "price", "category");
+
+    private final ProductRepository productRepository;
+    private final ProductBatchRepository productBatchRepository;
+    private final ICategoryService categoryService;
+    private final ProductSearchIndex productSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${products.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${products.import.max-row-length:65536}")
+    private int maxRowLength;
+
+    // A parsed row, or the reason it could not be parsed
+    private record ImportRow(long row, AddProductRequest request, String error) {
+    }
+
+    private interface RowReader {
+        ImportRow next() throws IOException;
+    }
+
+    private static final class Counts {
+        long processed;
+        long imported;
+        long failed;
+    }
+
+    @Override
+    public ProductImport prepareImport(InputStream content, DataFormat format) throws IOException {
+        // The CSV header is read here, so a missing column is a BadRequestException and not an event
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        RowReader rows = format == DataFormat.CSV ? csvRows(reader) : ndjsonRows(reader);
+        return listener -> importRows(rows, listener);
+    }
+
+    private void importRows(RowReader rows, Consumer<ProductImportEventDto> listener) {
+        Counts counts = new Counts();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        try {
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                counts.processed++;
+
+                // Rows that cannot be parsed or are incomplete fail on their own
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    counts.failed++;
+                    listener.accept(ProductImportEventDto.error(row.row(), error));
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    flushChunk(chunk, counts, listener);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                flushChunk(chunk, counts, listener);
+            }
+            listener.accept(ProductImportEventDto.done(counts.processed, counts.imported, counts.failed));
+        } catch (IOException | RuntimeException e) {
+            // The body could not be read any further, chunks written so far stay imported
+            listener.accept(ProductImportEventDto.aborted(
+                    e.getMessage(), counts.processed, counts.imported, counts.failed));
+        }
+    }
+
+    private void flushChunk(List<ImportRow> chunk, Counts counts, Consumer<ProductImportEventDto> listener) {
+        int imported = importChunk(chunk, listener);
+        counts.imported += imported;
+        counts.failed += chunk.size() - imported;
+        chunk.clear();
+
+        // Report progress once per chunk
+        listener.accept(ProductImportEventDto.progress(counts.processed, counts.imported, counts.failed));
+    }
+
+    private int importChunk(List<ImportRow> chunk, Consumer<ProductImportEventDto> listener) {
+        Set<String> names = new HashSet<>();
+        chunk.forEach(row -> names.add(row.request().getName()));
+
+        List<ProductImportEventDto> duplicates = new ArrayList<>();
+        List<Product> products;
+        try {
+            // Categories come from the in-memory category map, missing ones are created once
+            Map<String, Category> categories = new HashMap<>();
+            for (ImportRow row : chunk) {
+                String category = row.request().getCategory().getName();
+                categories.computeIfAbsent(key(category), k -> categoryService.resolveCategory(category));
+            }
+
+            products = transactionTemplate.execute(status -> {
+                // One query for every product of the chunk that already exists
+                Set<String> existing = new HashSet<>();
+                productRepository.findByNameIn(names)
+                        .forEach(product -> existing.add(key(product.getName(), product.getBrand())));
+
+                // Skip existing name and brand pairs, including repeats within the chunk
+                List<Product> newProducts = new ArrayList<>();
+                for (ImportRow row : chunk) {
+                    AddProductRequest request = row.request();
+                    if (!existing.add(key(request.getName(), request.getBrand()))) {
+                        duplicates.add(ProductImportEventDto.error(row.row(), request.getName() + " already exists!"));
+                        continue;
+                    }
+                    newProducts.add(new Product(
+                            request.getName(),
+                            request.getBrand(),
+                            request.getPrice(),
+                            request.getInventory(),
+                            request.getDescription(),
+                            categories.get(key(request.getCategory().getName()))));
+                }
+
+                // Insert the whole chunk with one JDBC batch
+                productBatchRepository.insertAll(newProducts);
+                return newProducts;
+            });
+        } catch (DataAccessException e) {
+            // The chunk's transaction rolled back, none of its rows were imported
+            String message = "Not imported: " + e.getMostSpecificCause().getMessage();
+            chunk.forEach(row -> listener.accept(ProductImportEventDto.error(row.row(), message)));
+            return 0;
+        }
+
+        duplicates.forEach(listener);
+        index(names, products);
+        return products.size();
+    }
+
+    private void index(Set<String> names, List<Product> products) {
+        // Load the inserted rows once, with their generated ids and categories, to make them searchable
+        Set<String> inserted = new HashSet<>();
+        products.forEach(product -> inserted.add(key(product.getName(), product.getBrand())));
+
+        productRepository.findByNameIn(names).stream()
+                .filter(product -> inserted.contains(key(product.getName(), product.getBrand())))
+                .forEach(productSearchIndex::index);
+    }
+
+    private static String validate(AddProductRequest request) {
+        if (isBlank(request.getName()) || isBlank(request.getBrand())) {
+            return "Name and brand are required!";
+        }
+        if (request.getPrice() == null || request.getPrice().signum() < 0) {
+            return "Price must be zero or more!";
+        }
+        if (request.getInventory() < 0) {
+            return "Inventory must be zero or more!";
+        }
+        if (request.getCategory() == null || isBlank(request.getCategory().getName())) {
+            return "Category name is required!";
+        }
+        return null;
+    }
+
+    private RowReader csvRows(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader, maxRowLength);
+
+        // The header names the columns, so they can come in any order
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (MalformedRowException e) {
+            throw new BadRequestException("CSV header could not be read: " + e.getMessage());
+        }
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new BadRequestException("CSV header is missing the " + column + " column!");
+            }
+        }
+
+        long[] rowNumber = {0};
+        return () -> {
+            List<String> fields;
+            do {
+                rowNumber[0]++;
+                try {
+                    fields = csv.next();
+                } catch (MalformedRowException e) {
+                    // The reader skipped the row, the import goes on with the next one
+                    return new ImportRow(rowNumber[0], null, e.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            try {
+                AddProductRequest request = new AddProductRequest();
+                request.setName(field(fields, columns, "name"));
+                request.setBrand(field(fields, columns, "brand"));
+                request.setPrice(Optional.ofNullable(field(fields, columns, "price")).map(BigDecimal::new).orElse(null));
+                request.setInventory(Optional.ofNullable(field(fields, columns, "inventory")).map(Integer::parseInt).orElse(0));
+                request.setDescription(field(fields, columns, "description"));
+                Optional.ofNullable(field(fields, columns, "category"))
+                        .ifPresent(category -> request.setCategory(new Category(category)));
+                return new ImportRow(rowNumber[0], request, null);
+            } catch (NumberFormatException e) {
+                return new ImportRow(rowNumber[0], null, "Price or inventory is not a number!");
+            }
+        };
+    }
+
+    private RowReader ndjsonRows(BufferedReader reader) {
+        long[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                lineNumber[0]++;
+                try {
+                    line = readLine(reader);
+                } catch (MalformedRowException e) {
+                    return new ImportRow(lineNumber[0], null, e.getMessage());
+                }
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            // Every line is one product in the same shape as POST /products/add
+            try {
+                return new ImportRow(lineNumber[0], objectMapper.readValue(line, AddProductRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(lineNumber[0], null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private String readLine(BufferedReader reader) throws IOException {
+        // Like readLine, but a line over the limit is skipped to its end instead of buffered
+        StringBuilder line = new StringBuilder();
+        long length = 0;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (++length <= maxRowLength) {
+                line.append((char) c);
+            }
+        }
+
+        if (c == -1 && length == 0) {
+            return null;
+        }
+        if (length > maxRowLength) {
+            throw new MalformedRowException("Row is longer than " + maxRowLength + " characters!");
+        }
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return line.toString();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        // Missing and empty cells are both no value
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isBlank()) {
+            return null;
+        }
+        return fields.get(index).trim();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String key(String name) {
+        // Lower-cased, matching the case-insensitive collation of the database
+        return Objects.toString(name, "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String name, String brand) {
+        return key(name) + "\u0000" + key(brand);
+    }
+}
@@ -1,30 +1,80 @@
 package com.dev.boxpoint.service.product;
 
+import com.dev.boxpoint.config.CacheConfig;
+import com.dev.boxpoint.dtos.CacheStatsDto;
+import com.dev.boxpoint.dtos.CursorPageDto;
 import com.dev.boxpoint.dtos.ImageDto;
 import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.dtos.ResourceVersionDto;
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.mapper.ImageMapper;
+import com.dev.boxpoint.mapper.ProductMapper;
 import com.dev.boxpoint.model.*;
+import com.dev.boxpoint.projection.ImageView;
+import com.dev.boxpoint.projection.ProductVersionView;
+import com.dev.boxpoint.projection.ProductView;
 import com.dev.boxpoint.repository.*;
 import com.dev.boxpoint.request.AddProductRequest;
 import com.dev.boxpoint.request.UpdateProductRequest;
+import com.dev.boxpoint.service.cart.CartStore;
+import com.dev.boxpoint.service.category.ICategoryService;
+import com.dev.boxpoint.service.image.ImageVariantGenerator;
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import com.dev.boxpoint.service.inventory.IStockReservationService;
+import com.dev.boxpoint.service.search.ProductSearchIndex;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService implements IProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Stays well below the 2100 parameters SQL Server allows in one statement
+    private static final int MAX_BULK_DELETE = 1000;
+
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final ICategoryService categoryService;
     private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final OrderItemRepository orderItemRepository;
     private final ImageRepository imageRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final ImageMapper imageMapper;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final ImageStorage imageStorage;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final IStockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public Product addProduct(AddProductRequest request) {
@@ -34,22 +84,19 @@ public class ProductService implements IProductService {
             throw new EntityExistsException(request.getName() + " already exists!");
         }
 
-        // Set existing category to the product
-        Category category = Optional.ofNullable(categoryRepository.findByName(request.getCategory().getName()))
-                .orElseGet(() -> {
-
-                    // Create new category related to the product if it's not exists
-                    Category newCategory = new Category(request.getCategory().getName());
-
-                    // Save new category
-                    return categoryRepository.save(newCategory);
-                });
+        // Set existing category to the product, creating it once if it does not exist yet
+        Category category = categoryService.resolveCategory(request.getCategory().getName());
 
         // Set category as product category
         request.setCategory(category);
 
         // Save product
-        return productRepository.save(createProduct(request, category));
+        Product product = productRepository.save(createProduct(request, category));
+
+        // Make the new product searchable
+        productSearchIndex.index(product);
+
+        return product;
     }
 
     private boolean productExists(String name, String brand) {
@@ -70,18 +117,29 @@ public class ProductService implements IProductService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
     public Product updateProduct(UpdateProductRequest request, Long productId) {
-        // Find the existing product that want to be updated with given id
-        return productRepository.findById(productId)
+        // The request's inventory is the whole stock, including units held outside the product
+        return stockReservationService.replaceStock(productId, () -> productRepository.findById(productId)
                 // Mapping new information to existing product
                 .map(existingProduct -> updateExistingProduct(existingProduct, request))
                 // Save the updated product
                 .map(productRepository::save)
+                // Re-index the updated product
+                .map(product -> {
+                    productSearchIndex.index(product);
+                    return product;
+                })
                 // Throw error if product not found
-                .orElseThrow(() -> new EntityNotFoundException("Product not found!"));
+                .orElseThrow(() -> new EntityNotFoundException("Product not found!")));
     }
 
     private Product updateExistingProduct(Product existingProduct, UpdateProductRequest request) {
+        // The client edited an older version of the product, do not overwrite the newer one
+        if (request.getVersion() != null && request.getVersion() != existingProduct.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, existingProduct.getId());
+        }
+
         // Change value of existing product with given new information
         existingProduct.setName(request.getName());
         existingProduct.setBrand(request.getBrand());
@@ -89,8 +147,9 @@ public class ProductService implements IProductService {
         existingProduct.setInventory(request.getInventory());
         existingProduct.setDescription(request.getDescription());
 
-        // Find category by name from request
-        Category category = categoryRepository.findByName(request.getCategory().getName());
+        // Resolve category by name from request; like on add, an unknown name creates the
+        // category instead of leaving the product without one
+        Category category = categoryService.resolveCategory(request.getCategory().getName());
         // Set category to existing product
         existingProduct.setCategory(category);
 
@@ -100,120 +159,289 @@ public class ProductService implements IProductService {
 
     @Override
     public void deleteProductById(Long productId) {
-        // Try to find the product in the database by its ID
-        productRepository.findById(productId)
-                .ifPresentOrElse(product -> {
-                    // If the product exists, do the following:
-                    // Find all cart items that include this product
-                    List<CartItem> cartItems = cartItemRepository.findByProductId(productId);
+        // Delete the product like a bulk delete of one, and tell the caller if it did not exist
+        if (deleteProducts(List.of(productId)) == 0) {
+            throw new EntityNotFoundException("Product not found!");
+        }
+    }
 
-                    // Loop through each cart item related to this product
-                    cartItems.forEach(cartItem -> {
-                        // Get the cart that owns this cart item
-                        Cart cart = cartItem.getCart();
+    @Override
+    public int deleteProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        if (productIds.size() > MAX_BULK_DELETE) {
+            throw new BadRequestException("At most " + MAX_BULK_DELETE + " products can be deleted at once!");
+        }
 
-                        // Remove the cart item from the cart’s item list (to keep data consistent)
-                        cart.removeItem(cartItem);
+        // Carts in memory drop the items first, so their next write does not bring them back
+        cartStore.removeProducts(productIds);
+
+        // One statement per table, however many carts and orders reference the products
+        List<String> storageKeys = new ArrayList<>();
+        Integer deleted = transactionTemplate.execute(status -> {
+            // The image files are removed after the commit, so remember where they are; read in
+            // the transaction, so they are the files of the image rows it deletes
+            storageKeys.addAll(imageRepository.findStorageKeysByProductIdIn(productIds));
+
+            // Carts lose the products' items, so recompute their totals without them first
+            cartItemRepository.updateCartTotalsWithoutProducts(productIds);
+            cartItemRepository.deleteByProductIdIn(productIds);
+
+            // Order items stay as order history, only their link to the product is removed
+            orderItemRepository.detachProducts(productIds);
+
+            // Delete the image rows and the products themselves
+            imageRepository.deleteByProductIdIn(productIds);
+            return productRepository.deleteByIdIn(productIds);
+        });
+
+        // The products are gone: drop their files, cached DTOs and search entries
+        storageKeys.forEach(key -> {
+            imageStorage.delete(key);
+            imageVariantGenerator.delete(key);
+        });
+        productIds.forEach(productId -> {
+            cacheManager.getCache(CacheConfig.PRODUCTS).evict(productId);
+            productSearchIndex.remove(productId);
+        });
+
+        return deleted == null ? 0 : deleted;
+    }
 
-                        // Delete this cart item from the database
-                        cartItemRepository.delete(cartItem);
-                    });
+    @Override
+    public Product getProductById(Long productId) {
+        // Find product by id
+        return productRepository.findById(productId)
+                // Throw error if not found
+                .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+    }
 
-                    // Find all order items that include this product
-                    List<OrderItem> orderItems = orderItemRepository.findByProductId(productId);
+    @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
+    public ProductDto getProductDtoById(Long productId) {
+        // Only runs on a cache miss, the converted DTO is cached by product id;
+        // the product and its category are read as one projection, never as entities
+        ProductView product = productRepository.findViewById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+        return getConvertedProducts(List.of(product)).get(0);
+    }
 
-                    // Loop through each order item related to this product
-                    orderItems.forEach(orderItem -> {
-                        // Break the connection between the order item and the product
-                        // (so deleting the product won't cause a foreign key constraint error)
-                        orderItem.setProduct(null);
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
+    public void markProductChanged(Long productId) {
+        // New version for the HTTP validators, and the cached DTO is dropped
+        productRepository.touch(productId, Instant.now());
+    }
 
-                        // Save the updated order item
-                        orderItemRepository.save(orderItem);
-                    });
+    @Override
+    public ResourceVersionDto getProductVersion(Long productId) {
+        // Read only the version columns, so a 304 needs neither the product nor its images
+        ProductVersionView view = productRepository.findVersionById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found"));
 
-                    // Handle the relationship between the product and its category
-                    Optional.ofNullable(product.getCategory())
-                            // If the product has a category, remove it from that category’s product list
-                            .ifPresent(category -> category.getProducts().remove(product));
+        // The DTO embeds the category, so its version is part of the product's
+        Instant lastModified = Stream.of(view.lastModified(), view.categoryLastModified())
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        // Units held for checkouts are part of the inventory shown but move without a new row
+        // version, so they are part of the ETag, and Last-Modified cannot validate the product
+        long heldUnits = stockReservationService.findHeldUnits(List.of(productId)).getOrDefault(productId, 0L);
+        if (heldUnits > 0) {
+            return new ResourceVersionDto(
+                    "\"" + view.version() + "." + view.categoryVersion() + "." + heldUnits + "\"", null);
+        }
+        return new ResourceVersionDto("\"" + view.version() + "." + view.categoryVersion() + "\"", lastModified);
+    }
 
-                    // Remove the category link from the product itself
-                    product.setCategory(null);
+    @Override
+    public ResourceVersionDto getPageVersion(Window<ProductView> products) {
+        // Every product and category version on the page, plus whether a next page exists
+        // and the units held for checkouts, which change the inventory without a new version
+        Map<Long, Long> heldUnits = stockReservationService.findHeldUnits(products.stream().map(ProductView::id).toList());
+        return ResourceVersionDto.ofEntries(Stream.concat(
+                Stream.of(String.valueOf(products.hasNext())),
+                products.stream().map(product -> product.id() + ":" + product.version() + ":"
+                        + Optional.ofNullable(product.categoryId())
+                        .map(categoryId -> categoryId + ":" + product.categoryVersion())
+                        .orElse("")
+                        + ":" + heldUnits.getOrDefault(product.id(), 0L))));
+    }
 
-                    // Finally, delete the product from the database
-                    productRepository.deleteById(product.getId());
-                }, () -> {
-                    // If the product does NOT exist, throw an exception
-                    throw new EntityNotFoundException("Product not found!");
-                });
+    @Override
+    public CacheStatsDto getCacheStats() {
+        // Read the counters Caffeine records for the product cache
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCTS);
+        CacheStats stats = cache.getNativeCache().stats();
+
+        return new CacheStatsDto(
+                cache.getNativeCache().estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                stats.hitRate());
     }
 
     @Override
-    public Product getProductById(Long productId) {
-        // Find product by id
-        return productRepository.findById(productId)
-                // Throw error if not found
-                .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+    public Window<ProductView> getAllProducts(ProductSort sort, String cursor, Integer size) {
+        return scroll(sort, cursor, size, (position, limit) ->
+                productRepository.findViewsBy(position, limit, sort.toSort()));
     }
 
     @Override
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public Window<ProductView> getProductsByCategoryAndBrand(
+            String category, String brand, ProductSort sort, String cursor, Integer size) {
+        return scroll(sort, cursor, size, (position, limit) ->
+                productRepository.findByCategoryNameAndBrand(category, brand, position, limit, sort.toSort()));
     }
 
     @Override
-    public List<Product> getProductsByCategoryAndBrand(String category, String brand) {
-        return productRepository.findByCategoryNameAndBrand(category, brand);
+    public Window<ProductView> getProductsByCategory(String category, ProductSort sort, String cursor, Integer size) {
+        return scroll(sort, cursor, size, (position, limit) ->
+                productRepository.findByCategoryName(category, position, limit, sort.toSort()));
     }
 
     @Override
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryName(category);
+    public Window<ProductView> getProductsByBrandAndName(
+            String brand, String name, ProductSort sort, String cursor, Integer size) {
+        return scroll(sort, cursor, size, (position, limit) ->
+                productRepository.findByNameAndBrand(name, brand, position, limit, sort.toSort()));
     }
 
     @Override
-    public List<Product> getProductsByBrandAndName(String brand, String name) {
-        return productRepository.findByNameAndBrand(brand, name);
+    public Window<ProductView> getProductsByBrand(String brand, ProductSort sort, String cursor, Integer size) {
+        return scroll(sort, cursor, size, (position, limit) ->
+                productRepository.findByBrand(brand, position, limit, sort.toSort()));
+    }
+
+    private Window<ProductView> scroll(ProductSort sort, String cursor, Integer size,
+                                       BiFunction<ScrollPosition, Limit, Window<ProductView>> query) {
+        KeysetScrollPosition position = ProductCursor.decode(cursor, sort);
+        Limit limit = pageLimit(size);
+        Window<ProductView> window = query.apply(position, limit);
+
+        // Null sort values come first, and a null key only matches the other nulls: once they
+        // run out, the page goes on from the lowest sort value
+        if (!ProductCursor.isInsideNulls(position, sort) || window.hasNext()) {
+            return window;
+        }
+        Object lowest = sort == ProductSort.PRICE ? productRepository.findLowestPrice() : productRepository.findLowestName();
+        if (lowest == null) {
+            return window;
+        }
+
+        // A full page only needs to know whether anything follows
+        int remaining = limit.max() - window.size();
+        Window<ProductView> rest = query.apply(ProductCursor.from(sort, lowest), Limit.of(Math.max(remaining, 1)));
+        List<ProductView> content = new ArrayList<>(window.getContent());
+        if (remaining > 0) {
+            content.addAll(rest.getContent());
+        }
+        boolean hasNext = remaining > 0 ? rest.hasNext() : !rest.isEmpty();
+        return Window.from(content, index -> ProductCursor.positionOf(content.get(index), sort), hasNext);
     }
 
     @Override
-    public List<Product> getProductsByBrand(String brand) {
-        return productRepository.findByBrand(brand);
+    public CursorPageDto<ProductDto> searchProducts(String query, String cursor, Integer size) {
+        // Until the search index is built, fall back to the (slow) LIKE query in id order
+        if (!productSearchIndex.isReady()) {
+            Window<ProductView> products = productRepository.findByNameContainingIgnoreCase(
+                    query, ProductCursor.decode(cursor, ProductSort.ID), pageLimit(size), ProductSort.ID.toSort());
+            return getConvertedPage(products, ProductSort.ID);
+        }
+
+        // Get one page of relevance-ranked product ids from the index
+        ProductSearchIndex.SearchPage page = productSearchIndex.search(query, cursor, pageLimit(size).max());
+
+        // Load those products in one query and put them back in ranking order
+        Map<Long, ProductView> productsById = productRepository.findViewsByIdIn(page.ids()).stream()
+                .collect(Collectors.toMap(ProductView::id, Function.identity()));
+        List<ProductView> products = page.ids().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new CursorPageDto<>(getConvertedProducts(products), page.nextCursor(), page.hasNext());
+    }
+
+    private Limit pageLimit(Integer size) {
+        // Fall back to the default page size and never go over the maximum
+        if (size == null) {
+            return Limit.of(DEFAULT_PAGE_SIZE);
+        }
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1!");
+        }
+        return Limit.of(Math.min(size, MAX_PAGE_SIZE));
     }
 
     @Override
-    public List<Product> getProductsByName(String name) {
-        return productRepository.findByName(name);
+    public List<ProductDto> getConvertedProducts(List<ProductView> products) {
+        // Nothing to load for an empty page
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        // Load the image metadata of every product in one query, grouped by product id
+        List<Long> productIds = products.stream().map(ProductView::id).toList();
+        Map<Long, List<ImageDto>> imagesByProduct = findImages(productIds);
+        Map<Long, Long> heldUnits = stockReservationService.findHeldUnits(productIds);
+
+        // Convert each product and attach its images from the preloaded map
+        return products.stream()
+                .map(product -> {
+                    ProductDto productDto = productMapper.toDto(product);
+                    productDto.setImages(imagesByProduct.getOrDefault(product.id(), List.of()));
+                    addHeldUnits(productDto, heldUnits);
+                    return productDto;
+                })
+                .toList();
     }
 
     @Override
-    public List<ProductDto> getConvertedProducts(List<Product> products) {
-        // Convert a list of Product entities into a list of ProductDto objects
-        // 'products.stream()' turns the list into a stream (to process each item easily)
-        // 'map(this::convertToDto)' calls convertToDto() for each product
-        // '.toList()' collects the converted DTOs back into a list
-        return products.stream().map(this::convertToDto).toList();
+    public CursorPageDto<ProductDto> getConvertedPage(Window<ProductView> products, ProductSort sort) {
+        // Convert the current page and hand back the cursor for the next one
+        return new CursorPageDto<>(
+                getConvertedProducts(products.getContent()),
+                ProductCursor.encode(products, sort),
+                products.hasNext());
     }
 
     @Override
     public ProductDto convertToDto(Product product) {
-        // Use ModelMapper to automatically copy matching fields
-        // from the Product entity to a new ProductDto
-        ProductDto productDto = modelMapper.map(product, ProductDto.class);
+        // Fetch the image metadata linked to this product (never the image bytes)
+        List<ImageDto> imageDtos = findImages(List.of(product.getId())).getOrDefault(product.getId(), List.of());
 
-        // Fetch all images linked to this product from the database
-        List<Image> images = imageRepository.findByProductId(product.getId());
+        // Return the completed ProductDto (with product data + image data)
+        ProductDto productDto = toDto(product, imageDtos);
+        addHeldUnits(productDto, stockReservationService.findHeldUnits(List.of(product.getId())));
+        return productDto;
+    }
 
-        // Convert each Image entity into an ImageDto using ModelMapper
-        List<ImageDto> imageDtos = images.stream()
-                .map(image -> modelMapper.map(image, ImageDto.class))
-                .toList();
+    private static void addHeldUnits(ProductDto productDto, Map<Long, Long> heldUnits) {
+        // Units taken out of the product's row for checkouts are still in stock
+        long inventory = productDto.getInventory() + heldUnits.getOrDefault(productDto.getId(), 0L);
+        productDto.setInventory((int) inventory);
+    }
+
+    private ProductDto toDto(Product product, List<ImageDto> imageDtos) {
+        // Use the generated mapper to copy matching fields
+        // from the Product entity to a new ProductDto
+        ProductDto productDto = productMapper.toDto(product);
 
         // Attach the converted image list to the ProductDto
         productDto.setImages(imageDtos);
 
-        // Return the completed ProductDto (with product data + image data)
         return productDto;
     }
 
+    private Map<Long, List<ImageDto>> findImages(List<Long> productIds) {
+        // Select only the metadata columns, so the image BLOB is never read
+        return imageRepository.findViewsByProductIdIn(productIds).stream()
+                .collect(Collectors.groupingBy(ImageView::getProductId,
+                        Collectors.mapping(imageMapper::toDto, Collectors.toList())));
+    }
+
 }
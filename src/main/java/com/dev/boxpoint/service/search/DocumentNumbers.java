@@ -0,0 +1,110 @@
+package com.dev.boxpoint.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Product ids mapped to the dense document numbers that index the search index's arrays.
+ * Open addressing with linear probing over primitive arrays, so nothing is boxed per product.
+ */
+final class DocumentNumbers {
+
+    // Product ids are never this, it marks a free slot
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    DocumentNumbers() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The product's document number, or -1 if it is not indexed.
+     */
+    int get(long productId) {
+        int mask = keys.length - 1;
+        for (int slot = slot(productId, mask); keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == productId) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+
+    void put(long productId, int document) {
+        // At most half full, so probe sequences stay short
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(productId, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == productId) {
+                values[slot] = document;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = productId;
+        values[slot] = document;
+        size++;
+    }
+
+    /**
+     * Removes the product and returns its document number, or -1 if it was not indexed.
+     */
+    int remove(long productId) {
+        int mask = keys.length - 1;
+        int slot = slot(productId, mask);
+        while (keys[slot] != productId) {
+            if (keys[slot] == FREE) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int document = values[slot];
+
+        // Shift later entries of the probe sequence back into the hole, so lookups need no tombstones
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+        return document;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    private static int slot(long productId, int mask) {
+        // Consecutive ids spread over the table instead of filling one run of slots
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
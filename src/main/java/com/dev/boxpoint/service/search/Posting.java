@@ -0,0 +1,64 @@
+package com.dev.boxpoint.service.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents of one term with their weighted term frequencies, as two primitive arrays
+ * sorted by document number. Documents indexed in id order, as by a rebuild, are appended.
+ */
+final class Posting {
+
+    // The term in the postings map, null for a category's documents
+    final String term;
+
+    private int[] documents = new int[2];
+    private int[] frequencies = new int[2];
+    private int size;
+
+    Posting(String term) {
+        this.term = term;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int document(int index) {
+        return documents[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+
+    void put(int document, int frequency) {
+        // Appending is the common case, everything else is a binary search and a shift
+        int index = size == 0 || documents[size - 1] < document ? -size - 1 : Arrays.binarySearch(documents, 0, size, document);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+
+        int insertAt = -index - 1;
+        if (size == documents.length) {
+            int capacity = size + (size >> 1) + 1;
+            documents = Arrays.copyOf(documents, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        System.arraycopy(documents, insertAt, documents, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        documents[insertAt] = document;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+
+    void remove(int document) {
+        int index = Arrays.binarySearch(documents, 0, size, document);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(documents, index + 1, documents, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+    }
+}
@@ -0,0 +1,470 @@
+package com.dev.boxpoint.service.search;
+
+import com.dev.boxpoint.exceptions.InvalidCursorException;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over product name, brand, description and category name.
+ * Query tokens match indexed terms by prefix, every query token has to match, and hits
+ * are ranked by a weighted tf-idf score. Category names are indexed per category rather
+ * than per product, so renaming a category does not touch the product postings.
+ * <p>
+ * Products are numbered densely and postings are primitive arrays sorted by that number,
+ * so a query merges sorted arrays and keeps only the best hits of the page it returns.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int BRAND_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+
+    // Best score first, lowest id first among equal scores
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> documents with their weighted term frequency, for name, brand and description
+    private final NavigableMap<String, Posting> postings = new TreeMap<>();
+    // category name term -> category ids, and category id -> its name terms
+    private final NavigableMap<String, Set<Long>> categoryPostings = new TreeMap<>();
+    private final Map<Long, Set<String>> categoryTerms = new HashMap<>();
+    // category id -> documents of its products, each with the category weight as frequency
+    private final Map<Long, Posting> categoryDocuments = new HashMap<>();
+
+    // Per document number: its product id, the postings it is in (so it can be removed
+    // again) and its category's documents; numbers of removed documents are handed out again
+    private final DocumentNumbers documentNumbers = new DocumentNumbers();
+    private long[] productIds = new long[16];
+    private Posting[][] documentPostings = new Posting[16][];
+    private Posting[] documentCategory = new Posting[16];
+    private int[] freeDocuments = new int[16];
+    private int freeCount;
+    private int nextDocument;
+
+    // Ids indexed or removed by writes while a rebuild runs, null when no rebuild runs
+    private Set<Long> changedDuringRebuild;
+
+    private volatile boolean ready;
+
+    public record SearchPage(List<Long> ids, String nextCursor, boolean hasNext) {
+    }
+
+    private record Hit(long id, double score) {
+    }
+
+    /**
+     * Matching documents in ascending order, with their scores.
+     */
+    private record Matches(int[] documents, double[] scores, int size) {
+
+        private static final Matches NONE = new Matches(new int[0], new double[0], 0);
+
+        static Matches union(List<Posting> matching, int documentCount) {
+            if (matching.isEmpty()) {
+                return NONE;
+            }
+            if (matching.size() == 1) {
+                // A single posting is already sorted and distinct
+                Posting posting = matching.get(0);
+                double idf = idf(posting, documentCount);
+                int[] documents = new int[posting.size()];
+                double[] scores = new double[posting.size()];
+                for (int i = 0; i < posting.size(); i++) {
+                    documents[i] = posting.document(i);
+                    scores[i] = posting.frequency(i) * idf;
+                }
+                return new Matches(documents, scores, documents.length);
+            }
+
+            // Sort every entry by document as one long, the entry's index in the low half
+            int total = matching.stream().mapToInt(Posting::size).sum();
+            long[] keys = new long[total];
+            double[] entryScores = new double[total];
+            int entry = 0;
+            for (Posting posting : matching) {
+                double idf = idf(posting, documentCount);
+                for (int i = 0; i < posting.size(); i++) {
+                    keys[entry] = (long) posting.document(i) << 32 | entry;
+                    entryScores[entry] = posting.frequency(i) * idf;
+                    entry++;
+                }
+            }
+            Arrays.sort(keys);
+
+            // Sum the scores of each document's entries
+            int[] documents = new int[total];
+            double[] scores = new double[total];
+            int size = 0;
+            for (long key : keys) {
+                int document = (int) (key >>> 32);
+                double score = entryScores[(int) key];
+                if (size > 0 && documents[size - 1] == document) {
+                    scores[size - 1] += score;
+                } else {
+                    documents[size] = document;
+                    scores[size] = score;
+                    size++;
+                }
+            }
+            return new Matches(documents, scores, size);
+        }
+
+        Matches intersect(Matches other) {
+            int[] common = new int[Math.min(size, other.size)];
+            double[] commonScores = new double[common.length];
+            int count = 0;
+            for (int i = 0, j = 0; i < size && j < other.size; ) {
+                if (documents[i] < other.documents[j]) {
+                    i++;
+                } else if (documents[i] > other.documents[j]) {
+                    j++;
+                } else {
+                    common[count] = documents[i];
+                    commonScores[count] = scores[i] + other.scores[j];
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return new Matches(common, commonScores, count);
+        }
+
+        private static double idf(Posting posting, int documentCount) {
+            return Math.log(1.0 + (double) documentCount / posting.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        // Build the index in the background, searches fall back to the database until it is ready
+        Thread.ofPlatform().name("product-search-index").daemon().start(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Product search index could not be built, searching the database instead", e);
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            // Walk the catalog in keyset batches, so only one batch of entities is in memory at a time
+            ScrollPosition position = ScrollPosition.keyset();
+            Window<Product> batch;
+            do {
+                batch = productRepository.findAllBy(position, Limit.of(REBUILD_BATCH_SIZE), Sort.by("id"));
+                indexBatch(batch.getContent());
+                count += batch.size();
+
+                if (!batch.isEmpty()) {
+                    position = batch.positionAt(batch.size() - 1);
+                }
+            } while (batch.hasNext());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        ready = true;
+        log.info("Product search index built with {} products in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    private void indexBatch(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            // A write since the batch was read already indexed or removed a newer version
+            products.stream()
+                    .filter(product -> !changedDuringRebuild.contains(product.getId()))
+                    .forEach(this::indexDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            markChanged(product.getId());
+            indexDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            markChanged(productId);
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renameCategory(Long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            // Only the category's own terms change, its products stay linked by category id
+            putCategory(categoryId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchPage search(String query, String cursor, int limit) {
+        List<String> queryTerms = tokenize(query).distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return new SearchPage(List.of(), null, false);
+        }
+        Hit after = decodeCursor(cursor);
+
+        // Only the hits ranked after the cursor, plus one to know whether a next page exists
+        List<Hit> page;
+        lock.readLock().lock();
+        try {
+            page = bestHits(score(queryTerms), after, limit + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean hasNext = page.size() > limit;
+        List<Hit> content = hasNext ? page.subList(0, limit) : page;
+
+        return new SearchPage(
+                content.stream().map(Hit::id).toList(),
+                hasNext ? encodeCursor(content.get(content.size() - 1)) : null,
+                hasNext);
+    }
+
+    private Matches score(List<String> queryTerms) {
+        int documentCount = Math.max(documentNumbers.size(), 1);
+        Matches matches = null;
+
+        for (String queryTerm : queryTerms) {
+            // Product fields: every indexed term starting with the query term
+            List<Posting> matching = new ArrayList<>(prefixRange(postings, queryTerm).values());
+
+            // Category names: the products of every category whose name has a matching term
+            for (Set<Long> categoryIds : prefixRange(categoryPostings, queryTerm).values()) {
+                for (Long categoryId : categoryIds) {
+                    Posting documents = categoryDocuments.get(categoryId);
+                    if (documents != null && documents.size() > 0) {
+                        matching.add(documents);
+                    }
+                }
+            }
+
+            // Every query term has to match, so keep the intersection with the previous terms
+            Matches termMatches = Matches.union(matching, documentCount);
+            matches = matches == null ? termMatches : matches.intersect(termMatches);
+            if (matches.size() == 0) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    private List<Hit> bestHits(Matches matches, Hit after, int count) {
+        // The worst of the best hits so far is on top, and makes room for every better one
+        PriorityQueue<Hit> best = new PriorityQueue<>(RANKING.reversed());
+        for (int i = 0; i < matches.size(); i++) {
+            long id = productIds[matches.documents()[i]];
+            double score = matches.scores()[i];
+            if (after != null && compare(score, id, after) <= 0) {
+                continue;
+            }
+            if (best.size() < count) {
+                best.add(new Hit(id, score));
+            } else if (compare(score, id, best.peek()) < 0) {
+                best.poll();
+                best.add(new Hit(id, score));
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private static int compare(double score, long id, Hit other) {
+        // RANKING without creating a hit for every match
+        int byScore = Double.compare(other.score(), score);
+        return byScore != 0 ? byScore : Long.compare(id, other.id());
+    }
+
+    private void indexDocument(Product product) {
+        // Count weighted term frequencies over the product's own fields
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, product.getName(), NAME_WEIGHT);
+        addTerms(frequencies, product.getBrand(), BRAND_WEIGHT);
+        addTerms(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        // Re-indexing replaces whatever was indexed for the product before
+        removeDocument(product.getId());
+        int document = addDocument(product.getId());
+
+        Posting[] termPostings = new Posting[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            Posting posting = postings.computeIfAbsent(frequency.getKey(), Posting::new);
+            posting.put(document, frequency.getValue());
+            termPostings[i++] = posting;
+        }
+        documentPostings[document] = termPostings;
+
+        Category category = product.getCategory();
+        if (category != null && category.getId() != null) {
+            putCategory(category.getId(), category.getName());
+            Posting documents = categoryDocuments.computeIfAbsent(category.getId(), c -> new Posting(null));
+            documents.put(document, CATEGORY_WEIGHT);
+            documentCategory[document] = documents;
+        }
+    }
+
+    private int addDocument(long productId) {
+        // Reuse the number of a removed document before taking a new one
+        int document;
+        if (freeCount > 0) {
+            document = freeDocuments[--freeCount];
+        } else {
+            document = nextDocument++;
+            if (document == productIds.length) {
+                int capacity = document * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                documentPostings = Arrays.copyOf(documentPostings, capacity);
+                documentCategory = Arrays.copyOf(documentCategory, capacity);
+            }
+        }
+        productIds[document] = productId;
+        documentNumbers.put(productId, document);
+        return document;
+    }
+
+    private void markChanged(Long productId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(productId);
+        }
+    }
+
+    private void removeDocument(Long productId) {
+        int document = documentNumbers.remove(productId);
+        if (document < 0) {
+            return;
+        }
+
+        for (Posting posting : documentPostings[document]) {
+            posting.remove(document);
+            if (posting.size() == 0) {
+                postings.remove(posting.term);
+            }
+        }
+        if (documentCategory[document] != null) {
+            documentCategory[document].remove(document);
+        }
+        documentPostings[document] = null;
+        documentCategory[document] = null;
+
+        if (freeCount == freeDocuments.length) {
+            freeDocuments = Arrays.copyOf(freeDocuments, freeCount * 2);
+        }
+        freeDocuments[freeCount++] = document;
+    }
+
+    private void putCategory(Long categoryId, String name) {
+        // Unlink the old name terms of the category before linking the new ones
+        Set<String> oldTerms = categoryTerms.remove(categoryId);
+        if (oldTerms != null) {
+            for (String term : oldTerms) {
+                Set<Long> ids = categoryPostings.get(term);
+                if (ids != null) {
+                    ids.remove(categoryId);
+                    if (ids.isEmpty()) {
+                        categoryPostings.remove(term);
+                    }
+                }
+            }
+        }
+
+        Set<String> terms = new HashSet<>();
+        tokenize(name).forEach(terms::add);
+        terms.forEach(term -> categoryPostings.computeIfAbsent(term, t -> new HashSet<>()).add(categoryId));
+        categoryTerms.put(categoryId, terms);
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        tokenize(text).forEach(term -> frequencies.merge(term, weight, Integer::sum));
+    }
+
+    private static Stream<String> tokenize(String text) {
+        // Lower-case words made of letters and digits
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty());
+    }
+
+    private static <V> SortedMap<String, V> prefixRange(NavigableMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String encodeCursor(Hit hit) {
+        String raw = Double.doubleToLongBits(hit.score()) + "|" + hit.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Hit decodeCursor(String cursor) {
+        // No cursor means the first page
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Hit(Long.parseLong(parts[1]), Double.longBitsToDouble(Long.parseLong(parts[0])));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid cursor!");
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package com.dev.boxpoint.service.user;
 
 import com.dev.boxpoint.dtos.UserDto;
+import com.dev.boxpoint.mapper.UserMapper;
 import com.dev.boxpoint.model.User;
 import com.dev.boxpoint.repository.UserRepository;
+import com.dev.boxpoint.service.cart.CartStore;
 import com.dev.boxpoint.request.CreateUserRequest;
 import com.dev.boxpoint.request.UserUpdateRequest;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,7 +18,8 @@ import org.springframework.stereotype.Service;
 public class UserService implements IUserService {
 
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final CartStore cartStore;
 
     @Override
     public User createUser(CreateUserRequest request) {
@@ -52,12 +54,16 @@ public class UserService implements IUserService {
 
     @Override
     public void deleteUser(Long userId) {
-        userRepository.findById(userId).ifPresentOrElse(userRepository::delete, () -> {
+        userRepository.findById(userId).ifPresentOrElse(user -> {
+            // The cart is deleted with the user, unwritten changes are not needed
+            cartStore.discard(userId);
+            userRepository.delete(user);
+        }, () -> {
             throw new EntityNotFoundException("User not found!");
         });
     }
 
     public UserDto convertUserToDto(User user) {
-        return modelMapper.map(user, UserDto.class);
+        return userMapper.toDto(user);
     }
 }
@@ -0,0 +1,32 @@
+-- Merges categories whose names are equal under the column's collation into the one with the
+-- lowest id, then adds the unique constraint on category.name that concurrent category creation
+-- relies on. ddl-auto=update only logs a failure while duplicates exist, so run this once against
+-- an existing database before starting the new version. Running it again changes nothing.
+SET XACT_ABORT ON;
+BEGIN TRANSACTION;
+
+-- Every category with the id of the first category of the same name; the table lock keeps
+-- new duplicates out until the constraint exists
+SELECT id, MIN(id) OVER (PARTITION BY name) AS keep_id
+INTO #category_merge
+FROM dbo.category WITH (TABLOCKX, HOLDLOCK);
+
+-- Products move to the kept category, with a new version for their ETags
+UPDATE p
+SET p.category_id = m.keep_id, p.version = p.version + 1, p.last_modified = SYSUTCDATETIME()
+FROM dbo.product p
+JOIN #category_merge m ON m.id = p.category_id
+WHERE m.id <> m.keep_id;
+
+DELETE c
+FROM dbo.category c
+JOIN #category_merge m ON m.id = c.id
+WHERE m.id <> m.keep_id;
+
+DROP TABLE #category_merge;
+
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints
+               WHERE name = 'uk_category_name' AND parent_object_id = OBJECT_ID('dbo.category'))
+    ALTER TABLE dbo.category ADD CONSTRAINT uk_category_name UNIQUE (name);
+
+COMMIT TRANSACTION;
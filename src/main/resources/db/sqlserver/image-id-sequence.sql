@@ -0,0 +1,46 @@
+-- Moves image.id from IDENTITY to the pooled image_seq sequence (increment 50) that Hibernate
+-- batches image inserts with. ddl-auto=update changes neither, so run this once against an
+-- existing database before starting the new version. Running it again changes nothing.
+SET XACT_ABORT ON;
+BEGIN TRANSACTION;
+
+DECLARE @primaryKey sysname;
+DECLARE @sql nvarchar(max);
+DECLARE @start bigint;
+
+-- SQL Server cannot drop IDENTITY from a column, so copy the ids into a plain column and swap it in
+IF COLUMNPROPERTY(OBJECT_ID('dbo.image'), 'id', 'IsIdentity') = 1
+BEGIN
+    SELECT @primaryKey = name
+    FROM sys.key_constraints
+    WHERE parent_object_id = OBJECT_ID('dbo.image') AND type = 'PK';
+
+    ALTER TABLE dbo.image ADD id_copy bigint NULL;
+    EXEC sp_executesql N'UPDATE dbo.image SET id_copy = id';
+
+    SET @sql = N'ALTER TABLE dbo.image DROP CONSTRAINT ' + QUOTENAME(@primaryKey);
+    EXEC sp_executesql @sql;
+    ALTER TABLE dbo.image DROP COLUMN id;
+
+    EXEC sp_rename 'dbo.image.id_copy', 'id', 'COLUMN';
+    EXEC sp_executesql N'ALTER TABLE dbo.image ALTER COLUMN id bigint NOT NULL';
+    SET @sql = N'ALTER TABLE dbo.image ADD CONSTRAINT ' + QUOTENAME(@primaryKey) + N' PRIMARY KEY (id)';
+    EXEC sp_executesql @sql;
+END;
+
+-- Hibernate hands out the 50 ids below each sequence value, so the first value has to be max(id) + 50
+SELECT @start = ISNULL(MAX(id), 0) + 50 FROM dbo.image;
+
+IF OBJECT_ID('dbo.image_seq', 'SO') IS NULL
+BEGIN
+    SET @sql = N'CREATE SEQUENCE dbo.image_seq AS bigint START WITH ' + CAST(@start AS nvarchar(20)) + N' INCREMENT BY 50';
+    EXEC sp_executesql @sql;
+END
+-- A sequence created by ddl-auto=update starts at 1 and would hand out ids that are taken
+ELSE IF (SELECT CAST(current_value AS bigint) FROM sys.sequences WHERE object_id = OBJECT_ID('dbo.image_seq')) < @start - 50
+BEGIN
+    SET @sql = N'ALTER SEQUENCE dbo.image_seq RESTART WITH ' + CAST(@start AS nvarchar(20));
+    EXEC sp_executesql @sql;
+END;
+
+COMMIT TRANSACTION;
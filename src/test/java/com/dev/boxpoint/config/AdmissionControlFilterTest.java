@@ -0,0 +1,89 @@
+package com.dev.boxpoint.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionControlFilter filter =
+            new AdmissionControlFilter(1, Duration.ofMillis(10), Duration.ofSeconds(1), meterRegistry);
+
+    @Test
+    void asyncRequestKeepsItsPermitUntilTheAsyncBodyCompletes() throws Exception {
+        MockHttpServletRequest export = asyncRequest();
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        // The export's body still runs, so the next request is turned away
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/all"), rejected, (request, response) -> {
+        });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(availablePermits()).isZero();
+
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncErrorFollowedByCompletionReleasesThePermitOnce() throws Exception {
+        MockHttpServletRequest export = asyncRequest();
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) export.getAsyncContext();
+        asyncContext.getListeners().forEach(listener -> {
+            try {
+                listener.onError(new AsyncEvent(asyncContext, new IllegalStateException()));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        asyncContext.complete();
+
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncBodyWithoutConnectionReleasesThePermitWhenTheChainReturns() throws Exception {
+        MockHttpServletRequest download = asyncRequest();
+        filter.doFilter(download, new MockHttpServletResponse(), (request, response) -> {
+            request.setAttribute(AdmissionControlFilter.ASYNC_WITHOUT_CONNECTION, true);
+            request.startAsync();
+        });
+
+        // The image is still streaming, other requests are admitted meanwhile
+        assertThat(download.isAsyncStarted()).isTrue();
+        assertThat(availablePermits()).isEqualTo(1);
+
+        ((MockAsyncContext) download.getAsyncContext()).complete();
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void synchronousRequestReleasesItsPermitWhenTheChainReturns() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/all"), new MockHttpServletResponse(),
+                (request, response) -> {
+                });
+
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest asyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products/export");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("requests.admission.available").gauge().value();
+    }
+}
@@ -0,0 +1,192 @@
+package com.dev.boxpoint.controller;
+
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.service.image.IImageService;
+import com.dev.boxpoint.service.product.IProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs, optimistic updates, imports and exports of products over HTTP.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductControllerTest {
+
+    private static final String PRODUCTS = "/api/v1/products";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoSpyBean
+    private IProductService productService;
+    @Autowired
+    private IImageService imageService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.findByName("Conditional");
+        if (category == null) {
+            category = categoryRepository.save(new Category("Conditional"));
+        }
+        productId = productRepository.save(new Product(
+                "Conditional " + System.nanoTime(), "Acme", new BigDecimal("9.99"), 3, null, category)).getId();
+    }
+
+    @Test
+    void matchingETagAnswers304WithoutConvertingTheProduct() throws Exception {
+        String etag = etag(PRODUCTS + "/product/" + productId + "/product");
+        Mockito.clearInvocations(productService);
+
+        mockMvc.perform(get(PRODUCTS + "/product/" + productId + "/product").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getProductDtoById(anyLong());
+    }
+
+    @Test
+    void matchingETagAnswers304WithoutConvertingThePage() throws Exception {
+        String etag = etag(PRODUCTS + "/all?size=5");
+        Mockito.clearInvocations(productService);
+
+        mockMvc.perform(get(PRODUCTS + "/all?size=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getConvertedPage(any(), any(ProductSort.class));
+    }
+
+    @Test
+    void uploadingAnImageChangesTheProductsETag() throws Exception {
+        String url = PRODUCTS + "/product/" + productId + "/product";
+        String before = etag(url);
+
+        imageService.saveImages(productId, List.of(new MockMultipartFile("files", "new.png", "image/png", png())));
+
+        // The old copy lacks the image, so it is sent again with a new validator
+        String after = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void updateWithAStaleVersionIsAConflict() throws Exception {
+        long version = productRepository.findById(productId).orElseThrow().getVersion();
+        mockMvc.perform(put(PRODUCTS + "/product/" + productId + "/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updateRequest(version)))
+                .andExpect(status().isOk());
+
+        // The second client still edits the version both clients read
+        mockMvc.perform(put(PRODUCTS + "/product/" + productId + "/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updateRequest(version)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void csvImportWithABadHeaderIsABadRequest() throws Exception {
+        mockMvc.perform(post(PRODUCTS + "/import")
+                        .contentType("text/csv")
+                        .content("name,brand,category\nHeadless Kettle,Acme,Kitchen\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void csvImportStreamsItsEventsAsync() throws Exception {
+        MvcResult started = mockMvc.perform(post(PRODUCTS + "/import")
+                        .contentType("text/csv")
+                        .content("name,brand,price,category\nImported " + System.nanoTime() + ",Acme,19.99,Conditional\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"type\":\"done\"")));
+    }
+
+    @Test
+    void csvExportStreamsEveryProductWithItsOwnTimeout() throws Exception {
+        MvcResult started = mockMvc.perform(get(PRODUCTS + "/export?format=CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // products.export.timeout, not the 5 minutes of spring.mvc.async.request-timeout
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("products.csv")))
+                .andReturn().getResponse().getContentAsString();
+
+        // The header and one row per product
+        assertThat(csv.lines()).hasSize((int) productRepository.count() + 1);
+        assertThat(csv).contains(productId + ",Conditional ");
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+
+    private static String updateRequest(long version) {
+        return """
+                {"name": "Edited %d", "brand": "Acme", "price": 9.99, "inventory": 3,
+                 "category": {"name": "Conditional"}, "version": %d}
+                """.formatted(System.nanoTime(), version);
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", content);
+        return content.toByteArray();
+    }
+}
@@ -0,0 +1,132 @@
+package com.dev.boxpoint.service.cart;
+
+import com.dev.boxpoint.model.CartItem;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CartBatchRepository;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// Flushes only when the test asks for it
+@SpringBootTest(properties = "carts.store.flush-interval=1h")
+@ActiveProfiles("test")
+class CartStoreTest {
+
+    @Autowired
+    private CartStore cartStore;
+    @MockitoSpyBean
+    private CartBatchRepository cartBatchRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void itemOfADeletedProductIsSkippedAndTheRestOfItsCartIsWritten() {
+        Product product = product("Flushed");
+        List<Long> users = List.of(user("first"), user("broken"), user("last"));
+
+        // The broken cart also holds a product that is gone, like one deleted while it was added
+        addItem(users.get(0), product.getId());
+        addItem(users.get(1), product.getId());
+        addItem(users.get(1), Long.MAX_VALUE);
+        addItem(users.get(2), product.getId());
+
+        cartStore.flush();
+
+        for (Long userId : users) {
+            assertThat(storedQuantity(userId, product.getId())).isEqualTo(2);
+        }
+
+        // The broken cart keeps its other item, and the next flush stores its total without the skipped one
+        int items = cartStore.read(users.get(1), cart -> cart.getItems().size());
+        assertThat(items).isEqualTo(1);
+        cartStore.flush();
+        assertThat(storedTotal(users.get(1))).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void writeThatFailsOnceIsRetriedWithTheChangesMadeMeanwhile() {
+        Product kettle = product("Kettle");
+        Product toaster = product("Toaster");
+        Long userId = user("retried");
+        addItem(userId, kettle.getId());
+
+        // The database is unreachable for one write, while the user adds another item
+        doAnswer(invocation -> {
+            addItem(userId, toaster.getId());
+            throw new QueryTimeoutException("Connection is gone");
+        }).doCallRealMethod().when(cartBatchRepository).writeAll(any());
+
+        cartStore.flush();
+        assertThat(storedItems(userId)).isZero();
+
+        cartStore.flush();
+        assertThat(storedQuantity(userId, kettle.getId())).isEqualTo(2);
+        assertThat(storedQuantity(userId, toaster.getId())).isEqualTo(2);
+        assertThat(storedTotal(userId)).isEqualByComparingTo("20.00");
+    }
+
+    private Product product(String name) {
+        Category category = categoryRepository.findByName("Flush");
+        if (category == null) {
+            category = categoryRepository.save(new Category("Flush"));
+        }
+        return productRepository.save(new Product(
+                name + " " + System.nanoTime(), "Acme", new BigDecimal("5.00"), 10, null, category));
+    }
+
+    private Long user(String name) {
+        User user = new User();
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        return userRepository.save(user).getId();
+    }
+
+    private void addItem(Long userId, Long productId) {
+        cartStore.write(userId, productId, cart -> {
+            Product product = new Product();
+            product.setId(productId);
+            CartItem item = new CartItem();
+            item.setProduct(product);
+            item.setQuantity(2);
+            item.setUnitPrice(new BigDecimal("5.00"));
+            item.setTotalPrice();
+            cart.addItem(item);
+            return null;
+        });
+    }
+
+    private int storedItems(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_item ci JOIN cart c ON c.id = ci.cart_id "
+                + "WHERE c.user_id = ?", Integer.class, userId);
+    }
+
+    private BigDecimal storedTotal(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT total_amount FROM cart WHERE user_id = ?", BigDecimal.class, userId);
+    }
+
+    private Integer storedQuantity(Long userId, Long productId) {
+        return jdbcTemplate.queryForObject("SELECT ci.quantity FROM cart_item ci JOIN cart c ON c.id = ci.cart_id "
+                + "WHERE c.user_id = ? AND ci.product_id = ?", Integer.class, userId, productId);
+    }
+}
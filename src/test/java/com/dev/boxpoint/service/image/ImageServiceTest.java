@@ -0,0 +1,88 @@
+package com.dev.boxpoint.service.image;
+
+import com.dev.boxpoint.dtos.ImageUploadResultDto;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ImageServiceTest {
+
+    @Autowired
+    private IImageService imageService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category category = categoryRepository.findByName("Uploads");
+        if (category == null) {
+            category = categoryRepository.save(new Category("Uploads"));
+        }
+        productId = productRepository.save(
+                new Product("Uploaded " + System.nanoTime(), "Acme", new BigDecimal("9.99"), 1, null, category)).getId();
+    }
+
+    @Test
+    void uploadingTenImagesTakesAsManyStatementsAsUploadingOne() throws IOException {
+        long oneFile = statementsToUpload(1);
+        long tenFiles = statementsToUpload(10);
+
+        // The ten inserts go out as one JDBC batch; at most one extra statement fetches the next block of 50 ids
+        assertThat(tenFiles).isBetween(oneFile - 1, oneFile + 1);
+        assertThat(tenFiles).isLessThan(10);
+    }
+
+    private long statementsToUpload(int count) throws IOException {
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(new MockMultipartFile("files", "upload-" + i + ".png", "image/png", png()));
+        }
+
+        statistics.clear();
+        List<ImageUploadResultDto> results = imageService.saveImages(productId, files);
+
+        assertThat(results).hasSize(count).allSatisfy(result -> assertThat(result.isSuccess()).isTrue());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(count);
+        // Download URLs are built from api.prefix, like the controller's mapping
+        assertThat(results).allSatisfy(result -> assertThat(result.getImage().getDownloadUrl())
+                .isEqualTo("/api/v1/images/image/download/" + result.getImage().getId()));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", content);
+        return content.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.dev.boxpoint.service.image;
+
+import com.dev.boxpoint.service.image.storage.ImageStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageVariantGeneratorTest {
+
+    private final ImageStorage imageStorage = mock(ImageStorage.class);
+    private ImageVariantGenerator generator;
+
+    @AfterEach
+    void tearDown() {
+        generator.shutdown();
+    }
+
+    @Test
+    void imageOverThePixelLimitIsNotDecoded() throws IOException {
+        generator = new ImageVariantGenerator(imageStorage, 1, 10, 1_000_000);
+
+        // A few hundred bytes declaring 50000 x 50000 pixels, decoding it would need 10 GB
+        byte[] bomb = withDeclaredSize(png(1, 1), 50_000, 50_000);
+        when(imageStorage.open("bomb")).thenReturn(new ByteArrayInputStream(bomb));
+
+        generator.generate("bomb");
+
+        verify(imageStorage, never()).saveAs(anyString(), any(InputStream.class));
+    }
+
+    @Test
+    void imageWithinThePixelLimitGetsItsVariants() throws IOException {
+        generator = new ImageVariantGenerator(imageStorage, 1, 10, 1_000_000);
+        when(imageStorage.open("photo")).thenReturn(new ByteArrayInputStream(png(800, 600)));
+        when(imageStorage.sizeOf("photo")).thenReturn(OptionalLong.of(1));
+
+        generator.generate("photo");
+
+        verify(imageStorage).saveAs(eq("photo-thumb.jpg"), any(InputStream.class));
+        verify(imageStorage).saveAs(eq("photo-medium.jpg"), any(InputStream.class));
+    }
+
+    @Test
+    void uploadsBeyondTheQueueCapacityAreSkipped() throws Exception {
+        generator = new ImageVariantGenerator(imageStorage, 1, 1, 1_000_000);
+
+        // The only worker blocks on the first image, the second one waits in the queue
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(imageStorage.open(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new ByteArrayInputStream(new byte[0]);
+        });
+
+        generator.generateAsync("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        generator.generateAsync("second");
+
+        // The queue is full, so the third upload gets no variants instead of failing or piling up
+        assertThatCode(() -> generator.generateAsync("third")).doesNotThrowAnyException();
+
+        release.countDown();
+        verify(imageStorage, timeout(5000)).open("second");
+        verify(imageStorage, never()).open("third");
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", content);
+        return content.toByteArray();
+    }
+
+    private static byte[] withDeclaredSize(byte[] png, int width, int height) {
+        // IHDR is the first chunk: width and height follow the 8-byte signature, length and type
+        ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.putInt(16, width);
+        buffer.putInt(20, height);
+
+        // The chunk's CRC covers its type and data, 4 + 13 bytes from offset 12
+        CRC32 crc = new CRC32();
+        crc.update(png, 12, 17);
+        buffer.putInt(29, (int) crc.getValue());
+        return png;
+    }
+}
@@ -0,0 +1,155 @@
+package com.dev.boxpoint.service.inventory;
+
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.OrderRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.request.UpdateProductRequest;
+import com.dev.boxpoint.service.product.IProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Settles only when the test asks for it
+@SpringBootTest(properties = {"inventory.ledger.enabled=true", "inventory.ledger.flush-interval=1h"})
+@ActiveProfiles("test")
+class LedgerStockReservationServiceTest {
+
+    private static final String CATEGORY = "Ledger";
+
+    @Autowired
+    private LedgerStockReservationService ledgerStockReservationService;
+    @Autowired
+    private IProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        // Every test starts without units in memory, like after a clean shutdown
+        ledgerStockReservationService.settle();
+        ledgerStockReservationService.releaseAll();
+    }
+
+    @Test
+    void startSettlesPendingItemsAndReleasesLeftoverAllocations() {
+        // A crash left 6 units allocated, 2 of them ordered and not settled yet
+        Long productId = product(10);
+        jdbcTemplate.update("UPDATE product SET inventory = 4 WHERE id = ?", productId);
+        jdbcTemplate.update("INSERT INTO inventory_allocation (product_id, units) VALUES (?, 6)", productId);
+        order(productId, 2);
+
+        ledgerStockReservationService.afterSingletonsInstantiated();
+
+        assertThat(inventory(productId)).isEqualTo(8);
+        assertThat(allocated(productId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_item WHERE product_id = ? AND stock_settlement = ?",
+                Integer.class, productId, OrderItem.STOCK_PENDING)).isZero();
+    }
+
+    @Test
+    void unitsInMemoryAreReportedAsStock() {
+        Long productId = product(150);
+
+        reserve(productId, 1);
+
+        // The whole inventory moved to the ledger, and is still shown to shoppers
+        assertThat(inventory(productId)).isZero();
+        assertThat(productService.getProductDtoById(productId).getInventory()).isEqualTo(149);
+    }
+
+    @Test
+    void reservationsChangeTheValidatorsAndTheCachedProduct() {
+        Long productId = product(150);
+        reserve(productId, 1);
+        String productEtag = productService.getProductVersion(productId).getEtag();
+        String pageEtag = pageEtag();
+        assertThat(productService.getProductDtoById(productId).getInventory()).isEqualTo(149);
+
+        reserve(productId, 2);
+
+        // Neither the validators nor the cached product keep the units held before
+        assertThat(productService.getProductVersion(productId).getEtag()).isNotEqualTo(productEtag);
+        assertThat(productService.getProductVersion(productId).getLastModified()).isNull();
+        assertThat(pageEtag()).isNotEqualTo(pageEtag);
+        assertThat(productService.getProductDtoById(productId).getInventory()).isEqualTo(147);
+    }
+
+    @Test
+    void absoluteInventoryReplacesUnitsInMemory() {
+        Long productId = product(150);
+        reserve(productId, 1);
+
+        productService.updateProduct(updateRequest(40), productId);
+        ledgerStockReservationService.settle();
+
+        // The new count is the whole stock, the ledger's units are not added to it
+        assertThat(inventory(productId)).isEqualTo(40);
+        assertThat(allocated(productId)).isZero();
+        assertThat(productService.getProductDtoById(productId).getInventory()).isEqualTo(40);
+    }
+
+    private String pageEtag() {
+        return productService.getPageVersion(productService.getProductsByCategory(CATEGORY, ProductSort.ID, null, 20)).getEtag();
+    }
+
+    private void reserve(Long productId, int quantity) {
+        TreeMap<Long, Integer> quantities = new TreeMap<>();
+        quantities.put(productId, quantity);
+        ledgerStockReservationService.reserve(quantities, stockSettlement -> order(productId, quantity));
+    }
+
+    private Order order(Long productId, int quantity) {
+        Order order = new Order();
+        OrderItem item = new OrderItem(quantity, new BigDecimal("5.00"), order, productRepository.getReferenceById(productId));
+        item.setStockSettlement(OrderItem.STOCK_PENDING);
+        order.getOrderItems().add(item);
+        return orderRepository.save(order);
+    }
+
+    private Long product(int inventory) {
+        Category category = categoryRepository.findByName(CATEGORY);
+        if (category == null) {
+            category = categoryRepository.save(new Category(CATEGORY));
+        }
+        return productRepository.save(new Product(
+                "Ledger " + System.nanoTime(), "Acme", new BigDecimal("5.00"), inventory, null, category)).getId();
+    }
+
+    private static UpdateProductRequest updateRequest(int inventory) {
+        UpdateProductRequest request = new UpdateProductRequest();
+        request.setName("Restocked " + System.nanoTime());
+        request.setBrand("Acme");
+        request.setPrice(new BigDecimal("5.00"));
+        request.setInventory(inventory);
+        request.setCategory(new Category(CATEGORY));
+        return request;
+    }
+
+    private int inventory(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT inventory FROM product WHERE id = ?", Integer.class, productId);
+    }
+
+    private long allocated(Long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(units), 0) FROM inventory_allocation WHERE product_id = ?", Long.class, productId);
+    }
+}
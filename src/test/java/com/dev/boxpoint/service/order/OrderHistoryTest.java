@@ -0,0 +1,117 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.OrderDto;
+import com.dev.boxpoint.exceptions.InvalidCursorException;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.OrderRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderHistoryTest {
+
+    private static final int ORDERS = 7;
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+    // How many units every order of the user has, by order id
+    private final Map<Long, Integer> quantities = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category category = categoryRepository.findByName("History");
+        if (category == null) {
+            category = categoryRepository.save(new Category("History"));
+        }
+        Product product = productRepository.save(
+                new Product("Ordered " + System.nanoTime(), "Acme", new BigDecimal("5.00"), 100, null, category));
+
+        User user = new User();
+        user.setEmail("history-" + System.nanoTime() + "@example.com");
+        User savedUser = userRepository.save(user);
+        userId = savedUser.getId();
+
+        // Every order has its own quantity, so an item listed under the wrong order shows
+        for (int i = 1; i <= ORDERS; i++) {
+            Order order = new Order();
+            order.setUser(savedUser);
+            order.setOrderDate(LocalDate.now());
+            order.setTotalAmount(new BigDecimal("5.00").multiply(BigDecimal.valueOf(i)));
+            order.getOrderItems().add(new OrderItem(i, new BigDecimal("5.00"), order, product));
+            quantities.put(orderRepository.save(order).getOrderId(), i);
+        }
+    }
+
+    @Test
+    void pagesFollowTheCursorNewestFirstWithTheirOwnItems() {
+        List<Long> orderIds = new ArrayList<>();
+        List<Long> statementsPerPage = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPageDto<OrderDto> page = orderService.getOrderHistory(userId, cursor, 3);
+            statementsPerPage.add(statistics.getPrepareStatementCount());
+
+            for (OrderDto order : page.getItems()) {
+                orderIds.add(order.getId());
+                assertThat(order.getUserId()).isEqualTo(userId);
+                assertThat(order.getItems()).singleElement()
+                        .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(quantities.get(order.getId())));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Every order once, newest first across the page boundaries
+        assertThat(orderIds).hasSize(ORDERS)
+                .containsExactlyInAnyOrderElementsOf(quantities.keySet())
+                .isSortedAccordingTo((a, b) -> Long.compare(b, a));
+
+        // One query for the page of orders, one for the items of all of them
+        assertThat(statementsPerPage).hasSize(3).containsOnly(2L);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> orderService.getOrderHistory(userId, "not-a-cursor!", 3))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
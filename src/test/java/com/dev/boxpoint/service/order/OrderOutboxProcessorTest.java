@@ -0,0 +1,158 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.enums.OrderStatus;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderOutboxEvent;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.OrderOutboxRepository;
+import com.dev.boxpoint.repository.OrderRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// No background workers, the tests run every batch themselves
+@SpringBootTest(properties = {"orders.outbox.workers=0", "orders.outbox.batch-size=10"})
+@ActiveProfiles("test")
+class OrderOutboxProcessorTest {
+
+    @Autowired
+    private OrderOutboxProcessor orderOutboxProcessor;
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Events left over by another test would be claimed by this one
+        orderOutboxRepository.deleteAll();
+        User newUser = new User();
+        newUser.setEmail("outbox-" + System.nanoTime() + "@example.com");
+        user = userRepository.save(newUser);
+    }
+
+    @Test
+    void claimedEventsAreRemovedAndAdvanceTheirOrders() {
+        List<Long> orderIds = placeOrders(3);
+        orderIds.forEach(orderId -> orderOutboxRepository.save(new OrderOutboxEvent(orderId, OrderStatus.PROCESSING)));
+        double advancedBefore = count("advanced");
+
+        int processed = orderOutboxProcessor.processBatch();
+
+        assertThat(processed).isEqualTo(3);
+        assertThat(orderOutboxRepository.count()).isZero();
+        assertThat(orderRepository.findAllById(orderIds))
+                .extracting(Order::getOrderStatus).containsOnly(OrderStatus.PROCESSING);
+        assertThat(count("advanced") - advancedBefore).isEqualTo(3);
+        int drained = orderOutboxProcessor.processBatch();
+        assertThat(drained).isZero();
+    }
+
+    @Test
+    void replayedEventChangesNothing() {
+        Long orderId = placeOrders(1).getFirst();
+        orderOutboxRepository.save(new OrderOutboxEvent(orderId, OrderStatus.PROCESSING));
+        orderOutboxProcessor.processBatch();
+
+        // The order moves on before the same event is delivered again
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        order.setOrderStatus(OrderStatus.SHIPPED);
+        orderRepository.save(order);
+        double advancedBefore = count("advanced");
+        double skippedBefore = count("skipped");
+
+        orderOutboxRepository.save(new OrderOutboxEvent(orderId, OrderStatus.PROCESSING));
+        int processed = orderOutboxProcessor.processBatch();
+
+        assertThat(processed).isEqualTo(1);
+        assertThat(orderOutboxRepository.count()).isZero();
+        assertThat(orderRepository.findById(orderId)).get()
+                .extracting(Order::getOrderStatus).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(count("advanced") - advancedBefore).isZero();
+        assertThat(count("skipped") - skippedBefore).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentBatchesApplyEveryEventOnce() throws Exception {
+        int orders = 100;
+        List<Long> orderIds = placeOrders(orders);
+        // Every event twice, the copy may land in the same batch or in the other worker's
+        for (int copy = 0; copy < 2; copy++) {
+            orderIds.forEach(orderId -> orderOutboxRepository.save(new OrderOutboxEvent(orderId, OrderStatus.PROCESSING)));
+        }
+        double advancedBefore = count("advanced");
+        double skippedBefore = count("skipped");
+
+        int workers = 2;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Integer>> claimed = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                claimed.add(pool.submit(() -> {
+                    start.await();
+                    int total = 0;
+                    for (int batch; (batch = orderOutboxProcessor.processBatch()) > 0; ) {
+                        total += batch;
+                    }
+                    return total;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> worker : claimed) {
+                total += worker.get();
+            }
+            // A worker stops when the other holds every event left, so drain what remains
+            total += orderOutboxProcessor.processBatch();
+            assertThat(total).isEqualTo(2 * orders);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(orderOutboxRepository.count()).isZero();
+        assertThat(orderRepository.findAllById(orderIds))
+                .extracting(Order::getOrderStatus).containsOnly(OrderStatus.PROCESSING);
+        assertThat(count("advanced") - advancedBefore).isEqualTo(orders);
+        assertThat(count("skipped") - skippedBefore).isEqualTo(orders);
+    }
+
+    private List<Long> placeOrders(int count) {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderDate(LocalDate.now());
+            order.setTotalAmount(new BigDecimal("5.00"));
+            order.setOrderStatus(OrderStatus.PENDING);
+            orderIds.add(orderRepository.save(order).getOrderId());
+        }
+        return orderIds;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("orders.outbox.events").tag("result", result).counter().count();
+    }
+}
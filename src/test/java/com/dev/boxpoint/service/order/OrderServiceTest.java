@@ -0,0 +1,188 @@
+package com.dev.boxpoint.service.order;
+
+import com.dev.boxpoint.exceptions.BadRequestException;
+import com.dev.boxpoint.exceptions.InsufficientStockException;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import com.dev.boxpoint.service.cart.CartStore;
+import com.dev.boxpoint.service.cart.ICartService;
+import com.dev.boxpoint.service.inventory.LedgerStockReservationService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+/**
+ * Concurrent checkouts against both stock reservation services: more buyers than units
+ * never oversell, and a cart submitted twice at once is ordered once.
+ */
+class OrderServiceTest {
+
+    private static final int STOCK = 5;
+    private static final int BUYERS = 12;
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(properties = "inventory.ledger.enabled=false")
+    @ActiveProfiles("test")
+    class DatabaseReservation extends OrderPlacement {
+
+        @Override
+        int unitsLeft(Long productId) {
+            return inventory(productId);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    // Settles only when the test asks for it
+    @SpringBootTest(properties = {"inventory.ledger.enabled=true", "inventory.ledger.flush-interval=1h"})
+    @ActiveProfiles("test")
+    class LedgerReservation extends OrderPlacement {
+
+        @Autowired
+        private LedgerStockReservationService ledgerStockReservationService;
+
+        @Override
+        int unitsLeft(Long productId) {
+            // Units not sold are either in the product or still allocated to the ledger
+            ledgerStockReservationService.settle();
+            Integer allocated = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(units), 0) FROM inventory_allocation WHERE product_id = ?", Integer.class, productId);
+            return inventory(productId) + allocated;
+        }
+    }
+
+    abstract class OrderPlacement {
+
+        @Autowired
+        private IOrderService orderService;
+        @Autowired
+        private ICartService cartService;
+        @Autowired
+        private CartStore cartStore;
+        @Autowired
+        private UserRepository userRepository;
+        @Autowired
+        private ProductRepository productRepository;
+        @Autowired
+        private CategoryRepository categoryRepository;
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        abstract int unitsLeft(Long productId);
+
+        @Test
+        void concurrentCheckoutsNeverOversell() throws Exception {
+            Long productId = product(STOCK);
+            List<Long> buyers = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                Long userId = user();
+                cartService.addItem(userId, productId, 1);
+                buyers.add(userId);
+            }
+
+            List<Object> outcomes = placeAtOnce(buyers);
+
+            assertThat(outcomes).filteredOn(outcome -> outcome instanceof InsufficientStockException)
+                    .hasSize(BUYERS - STOCK);
+            assertThat(sold(productId)).isEqualTo(STOCK);
+            assertThat(inventory(productId)).isNotNegative();
+            assertThat(unitsLeft(productId)).isEqualTo(STOCK - sold(productId));
+
+            // Buyers who got nothing still have the item in their cart
+            for (int i = 0; i < BUYERS; i++) {
+                int itemsLeft = cartStore.read(buyers.get(i), cart -> cart.getItems().size());
+                assertThat(itemsLeft).isEqualTo(outcomes.get(i) instanceof InsufficientStockException ? 1 : 0);
+            }
+        }
+
+        @Test
+        void cartSubmittedTwiceAtOnceIsOrderedOnce() throws Exception {
+            Long productId = product(10);
+            Long userId = user();
+            cartService.addItem(userId, productId, 2);
+
+            List<Object> outcomes = placeAtOnce(List.of(userId, userId));
+
+            assertThat(outcomes).filteredOn(outcome -> outcome instanceof BadRequestException).hasSize(1);
+            assertThat(sold(productId)).isEqualTo(2);
+            assertThat(unitsLeft(productId)).isEqualTo(8);
+            int itemsLeft = cartStore.read(userId, cart -> cart.getItems().size());
+            assertThat(itemsLeft).isZero();
+        }
+
+        /**
+         * Places an order for every user at the same moment; the outcome is the order id or
+         * the exception, in the users' order.
+         */
+        private List<Object> placeAtOnce(List<Long> userIds) throws InterruptedException, ExecutionException {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(userIds.size())) {
+                for (Long userId : userIds) {
+                    Callable<Object> checkout = () -> {
+                        start.await();
+                        try {
+                            return orderService.placeOrder(userId).getOrderId();
+                        } catch (RuntimeException e) {
+                            return e;
+                        }
+                    };
+                    futures.add(executor.submit(checkout));
+                }
+                start.countDown();
+            }
+
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                outcomes.add(future.get());
+            }
+            return outcomes;
+        }
+
+        private Long product(int inventory) {
+            Category category = categoryRepository.findByName("Checkout");
+            if (category == null) {
+                category = categoryRepository.save(new Category("Checkout"));
+            }
+            return productRepository.save(new Product(
+                    "Checkout " + System.nanoTime(), "Acme", new BigDecimal("5.00"), inventory, null, category)).getId();
+        }
+
+        private Long user() {
+            User user = new User();
+            user.setEmail("buyer-" + System.nanoTime() + "@example.com");
+            return userRepository.save(user).getId();
+        }
+
+        int inventory(Long productId) {
+            return jdbcTemplate.queryForObject("SELECT inventory FROM product WHERE id = ?", Integer.class, productId);
+        }
+
+        private int sold(Long productId) {
+            return jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(quantity), 0) FROM order_item WHERE product_id = ?", Integer.class, productId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.dtos.ProductImportEventDto;
+import com.dev.boxpoint.enums.DataFormat;
+import com.dev.boxpoint.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "products.import.max-row-length=200")
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    @Autowired
+    private IProductImportService productImportService;
+
+    @Test
+    void csvRowOverTheLimitFailsOnItsOwn() throws IOException {
+        String csv = "name,brand,price,category\n"
+                + "Csv Kettle,Acme,19.99,Kitchen\n"
+                + "Csv Toaster,Acme,29.99," + "x".repeat(1000) + "\n"
+                + "Csv Blender,Acme,39.99,Kitchen\n";
+
+        List<ProductImportEventDto> events = importProducts(csv, DataFormat.CSV);
+
+        assertThat(errors(events)).extracting(ProductImportEventDto::getRow).containsExactly(2L);
+        assertThat(done(events).getImported()).isEqualTo(2);
+    }
+
+    @Test
+    void unterminatedQuotedFieldFailsTheRowWithoutBufferingTheRestOfTheUpload() throws IOException {
+        // Everything after the open quote belongs to one field, which runs past the limit
+        String csv = "name,brand,price,category\n"
+                + "Quoted Kettle,Acme,19.99,Kitchen\n"
+                + "\"Quoted Toaster,Acme,29.99,Kitchen\n"
+                + "Quoted Blender,Acme,39.99,Kitchen\n".repeat(100);
+
+        List<ProductImportEventDto> events = importProducts(csv, DataFormat.CSV);
+
+        assertThat(errors(events)).extracting(ProductImportEventDto::getRow).containsExactly(2L);
+        assertThat(done(events).getImported()).isEqualTo(1);
+    }
+
+    @Test
+    void ndjsonLineOverTheLimitFailsOnItsOwn() throws IOException {
+        String ndjson = "{\"name\":\"Json Kettle\",\"brand\":\"Acme\",\"price\":19.99,\"category\":{\"name\":\"Kitchen\"}}\n"
+                + "{\"name\":\"Json Toaster\",\"brand\":\"Acme\",\"price\":29.99,\"description\":\"" + "x".repeat(1000) + "\"}\n"
+                + "{\"name\":\"Json Blender\",\"brand\":\"Acme\",\"price\":39.99,\"category\":{\"name\":\"Kitchen\"}}\n";
+
+        List<ProductImportEventDto> events = importProducts(ndjson, DataFormat.NDJSON);
+
+        assertThat(errors(events)).singleElement()
+                .satisfies(error -> assertThat(error.getRow()).isEqualTo(2L))
+                .satisfies(error -> assertThat(error.getMessage()).contains("longer than 200"));
+        assertThat(done(events).getImported()).isEqualTo(2);
+    }
+
+    @Test
+    void csvHeaderWithoutARequiredColumnIsRejectedBeforeAnyRowIsRead() {
+        String csv = "name,brand,category\n" + "Headless Kettle,Acme,Kitchen\n";
+
+        assertThatThrownBy(() -> importProducts(csv, DataFormat.CSV))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("price");
+    }
+
+    @Test
+    void csvHeaderOverTheLimitIsRejectedBeforeAnyRowIsRead() {
+        String csv = "name,brand,price,category," + "x".repeat(1000) + "\n" + "Wide Kettle,Acme,19.99,Kitchen\n";
+
+        assertThatThrownBy(() -> importProducts(csv, DataFormat.CSV))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("header");
+    }
+
+    private List<ProductImportEventDto> importProducts(String content, DataFormat format) throws IOException {
+        List<ProductImportEventDto> events = new ArrayList<>();
+        productImportService.prepareImport(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format)
+                .run(events::add);
+        return events;
+    }
+
+    private static List<ProductImportEventDto> errors(List<ProductImportEventDto> events) {
+        return events.stream().filter(event -> event.getType().equals("error")).toList();
+    }
+
+    private static ProductImportEventDto done(List<ProductImportEventDto> events) {
+        return events.get(events.size() - 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.dev.boxpoint.service.product;
+
+import com.dev.boxpoint.dtos.CursorPageDto;
+import com.dev.boxpoint.dtos.ProductDto;
+import com.dev.boxpoint.enums.ProductSort;
+import com.dev.boxpoint.model.Cart;
+import com.dev.boxpoint.model.CartItem;
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Image;
+import com.dev.boxpoint.model.Order;
+import com.dev.boxpoint.model.OrderItem;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.model.User;
+import com.dev.boxpoint.repository.CartItemRepository;
+import com.dev.boxpoint.repository.CartRepository;
+import com.dev.boxpoint.repository.CategoryRepository;
+import com.dev.boxpoint.repository.ImageRepository;
+import com.dev.boxpoint.repository.OrderItemRepository;
+import com.dev.boxpoint.repository.OrderRepository;
+import com.dev.boxpoint.repository.ProductRepository;
+import com.dev.boxpoint.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductServiceTest {
+
+    private static final String CATEGORY = "Listing";
+
+    @Autowired
+    private IProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ImageRepository imageRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (categoryRepository.existsByName(CATEGORY)) {
+            return;
+        }
+
+        // Every product has two images, which a naive conversion would load one product at a time
+        Category category = categoryRepository.save(new Category(CATEGORY));
+        List<Image> images = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Product product = productRepository.save(
+                    new Product("Listed " + i, "Acme", new BigDecimal("9.99"), 10, "Listed product", category));
+            for (int j = 0; j < 2; j++) {
+                Image image = new Image();
+                image.setFileName("listed-" + i + "-" + j + ".jpg");
+                image.setFileType("image/jpeg");
+                image.setProduct(product);
+                images.add(image);
+            }
+        }
+        imageRepository.saveAll(images);
+    }
+
+    @Test
+    void convertingAPageTakesTheSameStatementsForAnyPageSize() {
+        long smallPage = statementsToList(5);
+        long largePage = statementsToList(20);
+
+        // One statement for the page of products, one for all of their images
+        assertThat(smallPage).isEqualTo(2);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void convertedPageCarriesEveryProductsImages() {
+        CursorPageDto<ProductDto> page = productService.getConvertedPage(
+                productService.getProductsByCategory(CATEGORY, ProductSort.ID, null, 20), ProductSort.ID);
+
+        assertThat(page.getItems()).hasSize(20)
+                .allSatisfy(product -> assertThat(product.getImages()).hasSize(2));
+    }
+
+    @Test
+    void deletingAProductTakesTheSameStatementsHoweverManyItemsReferenceIt() {
+        Category category = categoryRepository.findByName(CATEGORY);
+        Product unreferenced = productRepository.save(
+                new Product("Unreferenced " + System.nanoTime(), "Acme", new BigDecimal("9.99"), 10, null, category));
+        Product referenced = productRepository.save(
+                new Product("Referenced " + System.nanoTime(), "Acme", new BigDecimal("9.99"), 10, null, category));
+
+        // 150 carts and 50 order items hold the product
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            User user = new User();
+            user.setEmail("holder-" + i + "-" + System.nanoTime() + "@example.com");
+            Cart cart = new Cart();
+            cart.setUser(userRepository.save(user));
+            cart.addItem(new CartItem(null, 1, new BigDecimal("9.99"), new BigDecimal("9.99"), referenced, null));
+            carts.add(cart);
+        }
+        cartRepository.saveAll(carts);
+        Order order = new Order();
+        for (int i = 0; i < 50; i++) {
+            order.getOrderItems().add(new OrderItem(1, new BigDecimal("9.99"), order, referenced));
+        }
+        orderRepository.save(order);
+        // Other tests of this context may have placed orders too
+        long orderItems = orderItemRepository.count();
+
+        long withoutItems = statementsToDelete(unreferenced.getId());
+        long withItems = statementsToDelete(referenced.getId());
+
+        // One lookup of the image files, then one statement per table
+        assertThat(withoutItems).isEqualTo(6);
+        assertThat(withItems).isEqualTo(withoutItems);
+        assertThat(cartItemRepository.count()).isZero();
+        assertThat(cartRepository.findAll()).allSatisfy(cart -> assertThat(cart.getTotalAmount()).isZero());
+        assertThat(orderItemRepository.count()).isEqualTo(orderItems);
+    }
+
+    private long statementsToDelete(Long productId) {
+        statistics.clear();
+        productService.deleteProductById(productId);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsToList(int size) {
+        statistics.clear();
+        CursorPageDto<ProductDto> page = productService.getConvertedPage(
+                productService.getProductsByCategory(CATEGORY, ProductSort.ID, null, size), ProductSort.ID);
+        assertThat(page.getItems()).hasSize(size);
+        return statistics.getPrepareStatementCount();
+    }
+}
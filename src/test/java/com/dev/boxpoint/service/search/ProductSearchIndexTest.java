@@ -0,0 +1,128 @@
+package com.dev.boxpoint.service.search;
+
+import com.dev.boxpoint.model.Category;
+import com.dev.boxpoint.model.Product;
+import com.dev.boxpoint.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository);
+
+    @Test
+    void rebuildDoesNotOverwriteAnUpdateMadeAfterTheBatchWasRead() {
+        Product stale = product(1L, "Wireless Speaker");
+        Product updated = product(1L, "Portable Camera");
+
+        // The update commits and is indexed between reading the batch and indexing it
+        when(productRepository.findAllBy(any(ScrollPosition.class), any(Limit.class), any(Sort.class)))
+                .thenAnswer(invocation -> {
+                    index.index(updated);
+                    return batchOf(stale);
+                });
+        index.rebuild();
+
+        assertThat(index.search("camera", null, 10).ids()).containsExactly(1L);
+        assertThat(index.search("speaker", null, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void rebuildDoesNotBringBackAProductDeletedAfterTheBatchWasRead() {
+        Product deleted = product(1L, "Wireless Speaker");
+        Product kept = product(2L, "Compact Speaker");
+
+        when(productRepository.findAllBy(any(ScrollPosition.class), any(Limit.class), any(Sort.class)))
+                .thenAnswer(invocation -> {
+                    index.remove(1L);
+                    return batchOf(deleted, kept);
+                });
+        index.rebuild();
+
+        assertThat(index.search("speaker", null, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void writesAfterTheRebuildAreIndexedAsUsual() {
+        when(productRepository.findAllBy(any(ScrollPosition.class), any(Limit.class), any(Sort.class)))
+                .thenReturn(batchOf(product(1L, "Wireless Speaker")));
+        index.rebuild();
+
+        index.index(product(1L, "Portable Camera"));
+        index.rebuild();
+
+        // Once the rebuild finished, the product is no longer protected from the rebuild's version
+        assertThat(index.search("speaker", null, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void pagesOfBestHitsFollowTheRankingOfAllHits() {
+        for (long id = 1; id <= 60; id++) {
+            // Names score higher than descriptions, so the ranking is not just id order
+            Product product = id % 3 == 0
+                    ? product(id, "Camera " + id)
+                    : product(id, "Lens " + id);
+            product.setDescription(id % 3 == 0 ? null : "fits any camera");
+            index.index(product);
+        }
+
+        List<Long> all = index.search("camera", null, 100).ids();
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductSearchIndex.SearchPage page = index.search("camera", cursor, 7);
+            paged.addAll(page.ids());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(all).hasSize(60).startsWith(3L, 6L, 9L);
+        assertThat(paged).isEqualTo(all);
+    }
+
+    @Test
+    void removedProductsLeaveNoHitsAndTheirNumbersAreReused() {
+        for (long id = 1; id <= 1000; id++) {
+            index.index(product(id, "Speaker " + id));
+        }
+        for (long id = 3; id <= 1000; id += 3) {
+            index.remove(id);
+        }
+        // Re-indexed under another name, on the numbers the removed products freed
+        for (long id = 3; id <= 300; id += 3) {
+            index.index(product(id, "Camera " + id));
+        }
+
+        assertThat(index.search("speaker", null, 2000).ids())
+                .hasSize(667)
+                .allSatisfy(id -> assertThat(id % 3).isNotZero());
+        assertThat(index.search("camera", null, 2000).ids()).hasSize(100);
+        assertThat(index.search("speaker 999", null, 10).ids()).isEmpty();
+        assertThat(index.search("speak 1000", null, 10).ids()).containsExactly(1000L);
+    }
+
+    private static Window<Product> batchOf(Product... products) {
+        return Window.from(List.of(products), i -> ScrollPosition.forward(Map.of("id", products[i].getId())));
+    }
+
+    private static Product product(Long id, String name) {
+        Category category = new Category("Audio");
+        category.setId(10L);
+        Product product = new Product(name, "Acme", new BigDecimal("9.99"), 1, null, category);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,76 @@
+package scratch;
+
+import com.dev.boxpoint.BoxpointApplication;
+import com.dev.boxpoint.model.*;
+import com.dev.boxpoint.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import javax.sql.rowset.serial.SerialBlob;
+import java.math.BigDecimal;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+@AutoConfigureMockMvc
+@org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability
+@SpringBootTest(classes = BoxpointApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:t;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa", "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "images.storage.root=/tmp/scratch-images", "products.import.chunk-size=2", "spring.jpa.properties.hibernate.format_sql=false", "spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.properties.hibernate.jdbc.batch_size=50", "images.migration.batch-size=2",
+        "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false", "carts.store.flush-interval=300ms", "carts.store.max-size=1", "inventory.ledger.enabled=true", "inventory.ledger.flush-interval=1h", "orders.outbox.workers=0"})
+class ScratchTest {
+    @Autowired ProductRepository productRepository;
+    @Autowired ImageRepository imageRepository;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired MockMvc mvc;
+    @Autowired jakarta.persistence.EntityManagerFactory emf;
+
+    MvcResult call(org.springframework.test.web.servlet.RequestBuilder rb) throws Exception {
+        MvcResult r = mvc.perform(rb).andReturn();
+        if (r.getRequest().isAsyncStarted()) r = mvc.perform(asyncDispatch(r)).andReturn();
+        var resp = r.getResponse();
+        System.out.println("SCRATCH " + resp.getStatus() + " range=" + resp.getHeader("Content-Range") + " len=" + resp.getHeader("Content-Length") + " type=" + resp.getContentType());
+        return r;
+    }
+
+    @Autowired jakarta.persistence.EntityManager em;
+    @Autowired org.springframework.transaction.support.TransactionTemplate tx;
+
+    @Autowired UserRepository userRepository;
+    @Autowired org.springframework.jdbc.core.JdbcTemplate jdbc;
+    void dump() { System.out.println("SCRATCH db carts=" + jdbc.queryForList("select id,user_id,total_amount from cart") + " items=" + jdbc.queryForList("select id,cart_id,product_id,quantity,total_price from cart_item")); }
+    String body(org.springframework.test.web.servlet.RequestBuilder rb) throws Exception { String b = call(rb).getResponse().getContentAsString(); System.out.println("SCRATCH " + b.replaceAll("\"description\":\"d\",|\"images\":null,","")); return b; }
+
+    @Autowired com.dev.boxpoint.service.cart.ICartService cartService;
+    @Autowired com.dev.boxpoint.service.order.IOrderService orderService;
+    @Autowired InventoryLedgerRepository ledgerRepo;
+    java.util.List<String> walk(String sort, int size) throws Exception {
+        java.util.List<String> ids = new java.util.ArrayList<>(); String cur = null;
+        for (int i = 0; i < 20; i++) {
+            var rb = get("/api/v1/products/all").param("sort", sort).param("size", "" + size);
+            if (cur != null) rb = rb.param("cursor", cur);
+            String b = call(rb).getResponse().getContentAsString();
+            java.util.regex.Matcher m = java.util.regex.Pattern.compile("\\{\"id\":(\\d+)").matcher(b);
+            java.util.List<String> page = new java.util.ArrayList<>(); while (m.find()) page.add(m.group(1));
+            ids.add(page.toString());
+            if (!b.contains("\"nextCursor\":\"")) break;
+            cur = b.replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        }
+        return ids;
+    }
+    @Test
+    void run() throws Exception {
+        Category c = categoryRepository.save(new Category("cat"));
+        String[][] rows = {{null, "b"}, {"3", null}, {null, "a"}, {"1", "c"}, {null, null}, {"2", "a"}, {"1", ""}};
+        for (String[] r : rows) productRepository.save(new Product(r[1], "b", r[0] == null ? null : new BigDecimal(r[0]), 1, "d", c));
+        for (int size : new int[]{1, 2, 3, 10}) {
+            System.out.println("SCRATCH PRICE " + size + " " + walk("PRICE", size));
+            System.out.println("SCRATCH NAME " + size + " " + walk("NAME", size));
+        }
+    }
+}